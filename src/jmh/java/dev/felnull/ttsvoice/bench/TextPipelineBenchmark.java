@@ -0,0 +1,103 @@
+package dev.felnull.ttsvoice.bench;
+
+import dev.felnull.ttsvoice.tts.TTSManager;
+import dev.felnull.ttsvoice.tts.sayvoice.LiteralSayVoice;
+import dev.felnull.ttsvoice.util.DiscordUtils;
+import dev.felnull.ttsvoice.util.TextUtils;
+import dev.felnull.ttsvoice.util.URLUtils;
+import dev.felnull.ttsvoice.voice.VoiceType;
+import dev.felnull.ttsvoice.voice.vvengine.voicevox.VVVoiceType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TextPipelineBenchmark {
+    private static final int MAX_TEXT_LENGTH = 200;
+    private static final int MIN_CHUNK_LENGTH = 10;
+    private static final VoiceType VOICE_TYPE = new VVVoiceType(3, "ずんだもん", "ノーマル");
+    private static final DiscordUtils.MentionResolver MENTION_RESOLVER = new DiscordUtils.MentionResolver() {
+        @Override
+        public String getUserName(long id) {
+            return "フェルヌル";
+        }
+
+        @Override
+        public String getRoleName(long id) {
+            return "運営";
+        }
+
+        @Override
+        public String getChannelName(long id) {
+            return "雑談";
+        }
+    };
+    private List<String> messages;
+    private int index;
+
+    @Setup
+    public void setup() throws IOException {
+        try (var reader = new BufferedReader(new InputStreamReader(Objects.requireNonNull(getClass().getResourceAsStream("/messages.txt")), StandardCharsets.UTF_8))) {
+            messages = reader.lines().filter(n -> !n.isEmpty()).map(n -> n.replace("\\n", "\n")).toList();
+        }
+        TextUtils.init();
+    }
+
+    private String nextMessage() {
+        var message = messages.get(index);
+        index = (index + 1) % messages.size();
+        return message;
+    }
+
+    @Benchmark
+    public String latinToHiragana() {
+        return TextUtils.convertLatinToHiragana(nextMessage());
+    }
+
+    @Benchmark
+    public String latinToHiraganaCached() {
+        return TextUtils.replaceLatinToHiragana(nextMessage());
+    }
+
+    @Benchmark
+    public String japaneseToLatin() {
+        return TextUtils.convertJapaneseToLatin(nextMessage());
+    }
+
+    @Benchmark
+    public String japaneseToLatinCached() {
+        return TextUtils.replaceJapaneseToLatin(nextMessage());
+    }
+
+    @Benchmark
+    public String urlToText() {
+        return URLUtils.replaceURLToText(nextMessage());
+    }
+
+    @Benchmark
+    public String codeBlockSyoryaku() {
+        return DiscordUtils.toCodeBlockSyoryaku(nextMessage());
+    }
+
+    @Benchmark
+    public String normalizeSayText() {
+        return TextUtils.normalizeSayText(nextMessage());
+    }
+
+    @Benchmark
+    public void sayChatText(Blackhole blackhole) {
+        var text = TTSManager.toChatText(nextMessage(), n -> DiscordUtils.replaceMentionToText(n, MENTION_RESOLVER), MAX_TEXT_LENGTH);
+        for (String chunk : TextUtils.splitSentences(text, MIN_CHUNK_LENGTH)) {
+            blackhole.consume(VOICE_TYPE.toSayVoiceText(new LiteralSayVoice(chunk)));
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package dev.felnull.ttsvoice;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import dev.felnull.ttsvoice.tts.TTSQueue;
+import dev.felnull.ttsvoice.util.JsonUtils;
 
 import java.util.List;
+import java.util.Map;
 
 public record Config(List<String> botTokens, List<String> voiceVoxURLs, List<String> coeiroInkURLs,
-                     String voiceTextAPIKey, int cashTime,
+                     String voiceTextAPIKey, int cashTime, int voiceCacheSize, int opusCacheSize,
+                     boolean virtualThreads, Map<String, Integer> engineConcurrency,
+                     int httpConnectTimeout, int httpRequestTimeout, int httpConnectionPoolSize, boolean voiceTextHttp2,
+                     int queueCapacity, TTSQueue.Policy queuePolicy, int prefetchWindow, int prefetchConcurrency,
+                     int metricsPort, String metricsBindAddress, int slowTraceThreshold, int synthesisBatchWindow, int synthesisBatchSize,
                      String ignoreRegex,
                      List<Long> inmDenyUser, List<Long> cookieDenyUser, List<Long> adminRoles, List<Long> needAdminServers) {
 
@@ -71,11 +79,64 @@ public record Config(List<String> botTokens, List<String> voiceVoxURLs, List<Str
             needAdminServersBuilder.add(entry.getAsLong());
         }
 
-        return new Config(botTokensBuilder.build(), voiceVoxURLsBuilder.build(), coeiroInkURLsBuilder.build(), jo.get("VoiceTextAPIKey").getAsString(), jo.get("CashTime").getAsInt(), jo.get("IgnoreRegex").getAsString(), inmDenyBuilder.build(), cookieDenyBuilder.build(), adminRolesBuilder.build(), needAdminServersBuilder.build());
+        var vcs = JsonUtils.getInteger(jo, "VoiceCacheSize");
+        int voiceCacheSize = vcs == null ? 512 : vcs;
+
+        var ocs = JsonUtils.getInteger(jo, "OpusCacheSize");
+        int opusCacheSize = ocs == null ? 32 : ocs;
+
+        var vt = JsonUtils.getBoolean(jo, "VirtualThreads");
+        boolean virtualThreads = vt != null && vt;
+
+        ImmutableMap.Builder<String, Integer> engineConcurrencyBuilder = new ImmutableMap.Builder<>();
+        if (jo.has("EngineConcurrency") && jo.get("EngineConcurrency").isJsonObject()) {
+            for (Map.Entry<String, JsonElement> entry : jo.getAsJsonObject("EngineConcurrency").entrySet()) {
+                engineConcurrencyBuilder.put(entry.getKey(), entry.getValue().getAsInt());
+            }
+        }
+
+        var hct = JsonUtils.getInteger(jo, "HttpConnectTimeout");
+        int httpConnectTimeout = hct == null ? 10 : hct;
+
+        var hrt = JsonUtils.getInteger(jo, "HttpRequestTimeout");
+        int httpRequestTimeout = hrt == null ? 60 : hrt;
+
+        var hcps = JsonUtils.getInteger(jo, "HttpConnectionPoolSize");
+        int httpConnectionPoolSize = hcps == null ? 0 : hcps;
+
+        var vth = JsonUtils.getBoolean(jo, "VoiceTextHttp2");
+        boolean voiceTextHttp2 = vth != null && vth;
+
+        var qc = JsonUtils.getInteger(jo, "QueueCapacity");
+        int queueCapacity = qc == null ? 100 : qc;
+
+        var queuePolicy = jo.has("QueuePolicy") ? TTSQueue.Policy.byName(jo.get("QueuePolicy").getAsString()) : TTSQueue.Policy.DROP_OLDEST;
+
+        var pw = JsonUtils.getInteger(jo, "PrefetchWindow");
+        int prefetchWindow = pw == null ? 10 : pw;
+
+        var pc = JsonUtils.getInteger(jo, "PrefetchConcurrency");
+        int prefetchConcurrency = pc == null ? 16 : pc;
+
+        var mp = JsonUtils.getInteger(jo, "MetricsPort");
+        int metricsPort = mp == null ? 0 : mp;
+
+        var metricsBindAddress = jo.has("MetricsBindAddress") ? jo.get("MetricsBindAddress").getAsString() : "127.0.0.1";
+
+        var stt = JsonUtils.getInteger(jo, "SlowTraceThreshold");
+        int slowTraceThreshold = stt == null ? 3000 : stt;
+
+        var sbw = JsonUtils.getInteger(jo, "SynthesisBatchWindow");
+        int synthesisBatchWindow = sbw == null ? 0 : sbw;
+
+        var sbs = JsonUtils.getInteger(jo, "SynthesisBatchSize");
+        int synthesisBatchSize = sbs == null ? 8 : sbs;
+
+        return new Config(botTokensBuilder.build(), voiceVoxURLsBuilder.build(), coeiroInkURLsBuilder.build(), jo.get("VoiceTextAPIKey").getAsString(), jo.get("CashTime").getAsInt(), voiceCacheSize, opusCacheSize, virtualThreads, engineConcurrencyBuilder.build(), httpConnectTimeout, httpRequestTimeout, httpConnectionPoolSize, voiceTextHttp2, queueCapacity, queuePolicy, prefetchWindow, prefetchConcurrency, metricsPort, metricsBindAddress, slowTraceThreshold, synthesisBatchWindow, synthesisBatchSize, jo.get("IgnoreRegex").getAsString(), inmDenyBuilder.build(), cookieDenyBuilder.build(), adminRolesBuilder.build(), needAdminServersBuilder.build());
     }
 
     public static Config createDefault() {
-        return new Config(ImmutableList.of(), ImmutableList.of("http://localhost:50021"), ImmutableList.of("http://127.0.0.1:50031"), "", 3, "(!|/|\\$|`).*", ImmutableList.of(), ImmutableList.of(), ImmutableList.of(939945132046827550L, 601000603354660864L), ImmutableList.of(930083398691733565L));
+        return new Config(ImmutableList.of(), ImmutableList.of("http://localhost:50021"), ImmutableList.of("http://127.0.0.1:50031"), "", 3, 512, 32, false, ImmutableMap.of("voicevox", 8, "coeiroink", 8, "voicetext", 4, "google-translate-tts", 4, "reinoare", 4), 10, 60, 0, false, 100, TTSQueue.Policy.DROP_OLDEST, 10, 16, 0, "127.0.0.1", 3000, 0, 8, "(!|/|\\$|`).*", ImmutableList.of(), ImmutableList.of(), ImmutableList.of(939945132046827550L, 601000603354660864L), ImmutableList.of(930083398691733565L));
     }
 
     public void check() {
@@ -89,6 +150,36 @@ public record Config(List<String> botTokens, List<String> voiceVoxURLs, List<Str
             throw new IllegalStateException("VoiceText api key is empty");
         if (cashTime < 0)
             throw new IllegalStateException("Cash time must be greater than or equal to 0");
+        if (voiceCacheSize < 0)
+            throw new IllegalStateException("Voice cache size must be greater than or equal to 0");
+        if (opusCacheSize < 0)
+            throw new IllegalStateException("Opus cache size must be greater than or equal to 0");
+        if (engineConcurrency.values().stream().anyMatch(n -> n < 1))
+            throw new IllegalStateException("Engine concurrency must be greater than or equal to 1");
+        if (httpConnectTimeout < 1)
+            throw new IllegalStateException("Http connect timeout must be greater than or equal to 1");
+        if (httpRequestTimeout < 1)
+            throw new IllegalStateException("Http request timeout must be greater than or equal to 1");
+        if (httpConnectionPoolSize < 0)
+            throw new IllegalStateException("Http connection pool size must be greater than or equal to 0");
+        if (queueCapacity < 1)
+            throw new IllegalStateException("Queue capacity must be greater than or equal to 1");
+        if (queuePolicy == null)
+            throw new IllegalStateException("Queue policy must be drop_oldest, merge or reject");
+        if (prefetchWindow < 0)
+            throw new IllegalStateException("Prefetch window must be greater than or equal to 0");
+        if (prefetchConcurrency < 1)
+            throw new IllegalStateException("Prefetch concurrency must be greater than or equal to 1");
+        if (metricsPort < 0 || metricsPort > 65535)
+            throw new IllegalStateException("Metrics port must be between 0 and 65535");
+        if (metricsBindAddress.isEmpty())
+            throw new IllegalStateException("Metrics bind address is empty");
+        if (slowTraceThreshold < 0)
+            throw new IllegalStateException("Slow trace threshold must be greater than or equal to 0");
+        if (synthesisBatchWindow < 0)
+            throw new IllegalStateException("Synthesis batch window must be greater than or equal to 0");
+        if (synthesisBatchSize < 1)
+            throw new IllegalStateException("Synthesis batch size must be greater than or equal to 1");
     }
 
     public JsonObject toJson() {
@@ -116,6 +207,28 @@ public record Config(List<String> botTokens, List<String> voiceVoxURLs, List<Str
 
         jo.addProperty("VoiceTextAPIKey", voiceTextAPIKey);
         jo.addProperty("CashTime", cashTime);
+        jo.addProperty("VoiceCacheSize", voiceCacheSize);
+        jo.addProperty("OpusCacheSize", opusCacheSize);
+        jo.addProperty("VirtualThreads", virtualThreads);
+
+        var ecjo = new JsonObject();
+        engineConcurrency.forEach(ecjo::addProperty);
+        jo.add("EngineConcurrency", ecjo);
+
+        jo.addProperty("HttpConnectTimeout", httpConnectTimeout);
+        jo.addProperty("HttpRequestTimeout", httpRequestTimeout);
+        jo.addProperty("HttpConnectionPoolSize", httpConnectionPoolSize);
+        jo.addProperty("VoiceTextHttp2", voiceTextHttp2);
+        jo.addProperty("QueueCapacity", queueCapacity);
+        jo.addProperty("QueuePolicy", queuePolicy.getName());
+        jo.addProperty("PrefetchWindow", prefetchWindow);
+        jo.addProperty("PrefetchConcurrency", prefetchConcurrency);
+        jo.addProperty("MetricsPort", metricsPort);
+        jo.addProperty("MetricsBindAddress", metricsBindAddress);
+        jo.addProperty("SlowTraceThreshold", slowTraceThreshold);
+        jo.addProperty("SynthesisBatchWindow", synthesisBatchWindow);
+        jo.addProperty("SynthesisBatchSize", synthesisBatchSize);
+
         jo.addProperty("IgnoreRegex", ignoreRegex);
 
         var idja = new JsonArray();
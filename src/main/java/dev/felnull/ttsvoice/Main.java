@@ -5,9 +5,14 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import dev.felnull.ttsvoice.audio.loader.VoiceLoaderManager;
+import dev.felnull.ttsvoice.metrics.MetricsServer;
 import dev.felnull.ttsvoice.tts.BotAndGuild;
 import dev.felnull.ttsvoice.tts.TTSListener;
 import dev.felnull.ttsvoice.tts.TTSManager;
+import dev.felnull.ttsvoice.util.HttpUtils;
+import dev.felnull.ttsvoice.util.TextUtils;
+import dev.felnull.ttsvoice.voice.vvengine.coeiroink.CoeiroInkManager;
+import dev.felnull.ttsvoice.voice.vvengine.voicevox.VoiceVoxManager;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.OnlineStatus;
@@ -74,6 +79,8 @@ public class Main {
             return;
         }
 
+        HttpUtils.init();
+
         LOGGER.info("Completed config check");
 
         if (SAVE_FILE.exists()) {
@@ -147,6 +154,14 @@ public class Main {
         timer.scheduleAtFixedRate(saveTask, 0, 30 * 1000);
 
         VoiceLoaderManager.getInstance().init();
+        VoiceVoxManager.getInstance().init();
+        CoeiroInkManager.getInstance().init();
+
+        TextUtils.init();
+        LOGGER.info("Completed text converter warm-up");
+
+        if (CONFIG.metricsPort() > 0)
+            MetricsServer.start(CONFIG.metricsBindAddress(), CONFIG.metricsPort());
 
         int num = 0;
         for (String botToken : CONFIG.botTokens()) {
@@ -172,6 +187,7 @@ public class Main {
                 .addSubcommands(new SubcommandData("cookie-mode", "クッキー☆モード").addOptions(new OptionData(OptionType.BOOLEAN, "enable", "有効かどうか").setRequired(true)))
                 .addSubcommands(new SubcommandData("join-say-name", "VCに参加時に名前を読み上げ").addOptions(new OptionData(OptionType.BOOLEAN, "enable", "有効かどうか").setRequired(true)))
                 .addSubcommands(new SubcommandData("read-around-limit", "最大読み上げ文字数").addOptions(new OptionData(OptionType.INTEGER, "max-count", "最大文字数").setMinValue(1).setRequired(true)))
+                .addSubcommands(new SubcommandData("read-around-interval", "読み上げの間隔").addOptions(new OptionData(OptionType.INTEGER, "interval", "間隔(ミリ秒)").setMinValue(0).setMaxValue(10000).setRequired(true)))
                 .addSubcommands(new SubcommandData("non-reading-prefix", "先頭につけると読み上げなくなる文字").addOptions(new OptionData(OptionType.STRING, "prefix", "接頭辞").setRequired(true)))
                 .addSubcommands(new SubcommandData("show", "現在のコンフィグを表示"));
         var vnick = Commands.slash("vnick", "読み上げユーザ名変更").addOptions(new OptionData(OptionType.STRING, "name", "名前").setRequired(true)).addOptions(new OptionData(OptionType.USER, "user", "ユーザー指定"));
@@ -4,6 +4,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import dev.felnull.ttsvoice.tts.MemberNameCache;
 import dev.felnull.ttsvoice.tts.TTSManager;
 import dev.felnull.ttsvoice.util.DiscordUtils;
 import dev.felnull.ttsvoice.voice.VoiceType;
@@ -133,6 +134,7 @@ public class SaveData {
         synchronized (userNickNames) {
             userNickNames.put(userId, name);
         }
+        MemberNameCache.getInstance().invalidateUser(userId);
         dirty = true;
     }
 
@@ -140,6 +142,7 @@ public class SaveData {
         synchronized (userNickNames) {
             userNickNames.remove(userId);
         }
+        MemberNameCache.getInstance().invalidateUser(userId);
         dirty = true;
     }
 
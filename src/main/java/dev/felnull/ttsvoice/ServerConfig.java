@@ -16,6 +16,7 @@ public class ServerConfig {
     private boolean cookieMode = false;
     private boolean joinSayName = false;
     private int maxReadAroundCharacterLimit = 200;
+    private int readAroundInterval = 1000;
     private String nonReadingPrefix = ";";
     private final Map<Long, TTSEntry> lastJoinChannels = new HashMap<>();
     private boolean dirty;
@@ -45,6 +46,10 @@ public class ServerConfig {
         if (mracl != null)
             maxReadAroundCharacterLimit = mracl;
 
+        var rai = JsonUtils.getInteger(jo, "read_around_interval");
+        if (rai != null)
+            readAroundInterval = rai;
+
         var nrp = JsonUtils.getString(jo, "non-reading_prefix");
         if (nrp != null)
             nonReadingPrefix = nrp;
@@ -66,6 +71,7 @@ public class ServerConfig {
         jo.addProperty("cookie_mode", cookieMode);
         jo.addProperty("join_say_name", joinSayName);
         jo.addProperty("max_read_around_character_limit", maxReadAroundCharacterLimit);
+        jo.addProperty("read_around_interval", readAroundInterval);
         jo.addProperty("non-reading_prefix", nonReadingPrefix);
 
         var ljjo = new JsonObject();
@@ -103,6 +109,10 @@ public class ServerConfig {
         return maxReadAroundCharacterLimit;
     }
 
+    public int getReadAroundInterval() {
+        return readAroundInterval;
+    }
+
     public String getNonReadingPrefix() {return nonReadingPrefix;}
 
     public boolean isDirty() {
@@ -143,6 +153,11 @@ public class ServerConfig {
         dirty = true;
     }
 
+    public void setReadAroundInterval(int readAroundInterval) {
+        this.readAroundInterval = readAroundInterval;
+        dirty = true;
+    }
+
     public void setNonReadingPrefix(String NonReadingPrefix) {
         this.nonReadingPrefix = NonReadingPrefix;
         dirty = true;
@@ -6,11 +6,20 @@ import net.dv8tion.jda.api.audio.AudioSendHandler;
 
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 public class AudioPlayerSendHandler implements AudioSendHandler {
     private final AudioPlayer audioPlayer;
     private final ByteBuffer buffer;
     private final MutableAudioFrame frame;
+    private final Object framesLock = new Object();
+    private Iterator<byte[]> frames;
+    private Runnable framesEnd;
+    private String recordKey;
+    private List<byte[]> recordFrames;
+    private int recordSize;
 
     public AudioPlayerSendHandler(AudioPlayer audioPlayer) {
         this.audioPlayer = audioPlayer;
@@ -21,7 +30,28 @@ public class AudioPlayerSendHandler implements AudioSendHandler {
 
     @Override
     public boolean canProvide() {
-        return audioPlayer.provide(frame);
+        Runnable end = null;
+        synchronized (framesLock) {
+            if (frames != null) {
+                if (frames.hasNext()) {
+                    ((Buffer) buffer).clear();
+                    buffer.put(frames.next());
+                    return true;
+                }
+                end = framesEnd;
+                frames = null;
+                framesEnd = null;
+            }
+        }
+        if (end != null) {
+            end.run();
+            return false;
+        }
+
+        boolean provided = audioPlayer.provide(frame);
+        if (provided)
+            record();
+        return provided;
     }
 
     @Override
@@ -34,4 +64,60 @@ public class AudioPlayerSendHandler implements AudioSendHandler {
     public boolean isOpus() {
         return true;
     }
+
+    public void playFrames(List<byte[]> frames, Runnable end) {
+        synchronized (framesLock) {
+            this.frames = frames.iterator();
+            this.framesEnd = end;
+        }
+    }
+
+    public void stopFrames() {
+        synchronized (framesLock) {
+            frames = null;
+            framesEnd = null;
+        }
+    }
+
+    public boolean isPlayingFrames() {
+        synchronized (framesLock) {
+            return frames != null;
+        }
+    }
+
+    public void startRecording(String key) {
+        synchronized (framesLock) {
+            recordKey = key;
+            recordFrames = key == null ? null : new ArrayList<>();
+            recordSize = 0;
+        }
+    }
+
+    public void finishRecording(boolean store) {
+        String key;
+        List<byte[]> recorded;
+        synchronized (framesLock) {
+            key = recordKey;
+            recorded = recordFrames;
+            recordKey = null;
+            recordFrames = null;
+        }
+        if (store && recorded != null)
+            OpusFrameCache.getInstance().put(key, recorded);
+    }
+
+    private void record() {
+        synchronized (framesLock) {
+            if (recordFrames == null)
+                return;
+            var data = frame.getData();
+            recordSize += data.length;
+            if (recordSize > OpusFrameCache.MAX_CLIP_SIZE) {
+                recordKey = null;
+                recordFrames = null;
+                return;
+            }
+            recordFrames.add(data);
+        }
+    }
 }
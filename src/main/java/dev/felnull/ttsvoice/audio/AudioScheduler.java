@@ -4,67 +4,73 @@ import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
 import com.sedmelluq.discord.lavaplayer.player.event.AudioEventAdapter;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason;
-import dev.felnull.fnjl.util.FNDataUtil;
-import dev.felnull.fnjl.util.FNMath;
 import dev.felnull.ttsvoice.Main;
 import dev.felnull.ttsvoice.audio.loader.VoiceLoaderManager;
 import dev.felnull.ttsvoice.audio.player.VoiceTrackLoader;
+import dev.felnull.ttsvoice.metrics.Metrics;
 import dev.felnull.ttsvoice.tts.BotAndGuild;
 import dev.felnull.ttsvoice.tts.TTSManager;
 import dev.felnull.ttsvoice.tts.TTSVoiceEntry;
-import org.apache.commons.lang3.concurrent.BasicThreadFactory;
-import org.apache.commons.lang3.tuple.Pair;
+import dev.felnull.ttsvoice.tts.TraceRecorder;
+import dev.felnull.ttsvoice.tts.UtteranceTrace;
+import dev.felnull.ttsvoice.util.ThreadUtils;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.function.Function;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class AudioScheduler extends AudioEventAdapter {
-    private static final Function<BotAndGuild, ExecutorService> EXECUTOR_SERVICES = FNDataUtil.memoize(bag -> Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new BasicThreadFactory.Builder().namingPattern("voice-tack-loader-" + bag.guildId() + "-" + bag.botNumber() + "-%d").daemon(true).build()));
-    private final int previsionLoadCount = 10;
-    private final Map<TTSVoiceEntry, CompletableFuture<Pair<VoiceTrackLoader, AudioTrack>>> previsionLoadTracks = new HashMap<>();
+    private static final int MAX_LOAD_CONCURRENCY = 4;
+    private static final ScheduledExecutorService COOL_DOWN_EXECUTOR = ThreadUtils.createScheduledExecutor("voice-cool-down-%d");
+    private static final int FRAME_DURATION = 20;
+    private final GuildTaskExecutor executor = new GuildTaskExecutor(MAX_LOAD_CONCURRENCY);
+    private final Map<TTSVoiceEntry, CompletableFuture<LoadedVoice>> previsionLoadTracks = new HashMap<>();
     private final Map<TTSVoiceEntry, VoiceTrackLoader> loaders = new HashMap<>();
     private final AudioPlayer player;
+    private final AudioPlayerSendHandler sendHandler;
     private final BotAndGuild botAndGuild;
     private final Object nextLock = new Object();
-    private final Object stopLock = new Object();
     private boolean loading;
-    private Thread loadThread;
-    private CoolDownThread coolDownThread;
+    private CompletableFuture<LoadedVoice> currentLoad;
+    private volatile ScheduledFuture<?> coolDown;
     private VoiceTrackLoader currentTrackLoader;
+    private TTSVoiceEntry currentEntry;
     protected boolean destroy;
 
     public AudioScheduler(AudioPlayer player, BotAndGuild bag) {
         this.player = player;
         this.player.addListener(this);
         var guild = bag.getGuild();
-        guild.getAudioManager().setSendingHandler(new AudioPlayerSendHandler(player));
+        this.sendHandler = new AudioPlayerSendHandler(player);
+        guild.getAudioManager().setSendingHandler(sendHandler);
         this.botAndGuild = bag;
     }
 
-    private ExecutorService getExecutorService() {
-        synchronized (EXECUTOR_SERVICES) {
-            return EXECUTOR_SERVICES.apply(botAndGuild);
-        }
-    }
-
     public void dispose() {
         this.destroy = true;
+        executor.shutdown();
 
-        if (coolDownThread != null)
-            coolDownThread.interrupt();
+        cancelCoolDown();
 
-        if (loading && loadThread != null)
-            loadThread.interrupt();
+        synchronized (nextLock) {
+            if (currentLoad != null) {
+                currentLoad.cancel(false);
+                currentLoad = null;
+            }
+            loading = false;
+        }
 
         if (currentTrackLoader != null)
             currentTrackLoader.end();
 
+        sendHandler.stopFrames();
+        sendHandler.finishRecording(false);
+
         synchronized (loaders) {
             for (VoiceTrackLoader value : loaders.values()) {
                 value.end();
@@ -79,130 +85,243 @@ public class AudioScheduler extends AudioEventAdapter {
 
     @Override
     public void onTrackEnd(AudioPlayer player, AudioTrack track, AudioTrackEndReason endReason) {
+        sendHandler.finishRecording(endReason == AudioTrackEndReason.FINISHED);
+        var entry = currentEntry;
+        currentEntry = null;
+        if (entry != null) {
+            if (endReason == AudioTrackEndReason.FINISHED)
+                PrefetchPlanner.getInstance().recordPlayback(entry.voice().voiceType(), track.getPosition());
+            finishTrace(entry);
+        }
         if (currentTrackLoader != null)
             currentTrackLoader.end();
         currentTrackLoader = null;
         startCoolDown();
     }
 
+    private void finishTrace(TTSVoiceEntry entry) {
+        entry.trace().mark(UtteranceTrace.Stage.END);
+        TraceRecorder.getInstance().record(botAndGuild, entry);
+    }
+
     private void startCoolDown() {
-        if (coolDownThread != null) {
-            coolDownThread.interrupt();
+        cancelCoolDown();
+        if (destroy) return;
+
+        long interval = isNextContinued() ? 0 : Math.max(Main.getServerConfig(botAndGuild.guildId()).getReadAroundInterval(), 0);
+        coolDown = COOL_DOWN_EXECUTOR.schedule(this::next, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelCoolDown() {
+        var cd = coolDown;
+        if (cd != null) {
+            cd.cancel(false);
+            coolDown = null;
         }
-        coolDownThread = new CoolDownThread();
-        coolDownThread.start();
+    }
+
+    private boolean isNextContinued() {
+        var next = TTSManager.getInstance().getTTSQueue(botAndGuild).peek();
+        return next != null && next.continued();
     }
 
     public void play(AudioTrack track, float volume) {
-        player.startTrack(track, false);
+        play(track, volume, null);
+    }
+
+    private void play(AudioTrack track, float volume, String frameCacheKey) {
         player.setVolume((int) (100 * volume));
+        sendHandler.startRecording(frameCacheKey);
+        player.startTrack(track, false);
     }
 
     public boolean isLoadingOrPlaying() {
-        return (coolDownThread != null && coolDownThread.isAlive()) || player.getPlayingTrack() != null || loading;
+        var cd = coolDown;
+        return (cd != null && !cd.isDone()) || player.getPlayingTrack() != null || sendHandler.isPlayingFrames() || loading;
     }
 
     public void stop() {
-        synchronized (stopLock) {
-            if (loadThread != null) {
-                loadThread.interrupt();
-                loadThread = null;
-                loading = false;
+        synchronized (nextLock) {
+            if (currentLoad != null) {
+                currentLoad.cancel(false);
+                currentLoad = null;
             }
+            loading = false;
+            discardPrevisionLoads();
             player.stopTrack();
-            if (coolDownThread != null) {
-                coolDownThread.interrupt();
-                coolDownThread = null;
-            }
+            sendHandler.stopFrames();
+            cancelCoolDown();
+        }
+    }
+
+    private void discardPrevisionLoads() {
+        synchronized (previsionLoadTracks) {
+            previsionLoadTracks.forEach(this::discard);
+            previsionLoadTracks.clear();
         }
     }
 
+    public void cancelPrevisionLoad(TTSVoiceEntry entry) {
+        CompletableFuture<LoadedVoice> load;
+        synchronized (previsionLoadTracks) {
+            load = previsionLoadTracks.remove(entry);
+        }
+        if (load != null)
+            discard(entry, load);
+    }
+
+    private void discard(TTSVoiceEntry entry, CompletableFuture<LoadedVoice> load) {
+        if (load.cancel(false))
+            return;
+        load.thenAccept(loaded -> {
+            synchronized (loaders) {
+                loaders.remove(entry);
+            }
+            if (loaded != null && loaded.loader() != null)
+                loaded.loader().end();
+        });
+    }
+
     public boolean next() {
         synchronized (nextLock) {
-            var vlm = VoiceLoaderManager.getInstance();
             var tm = TTSManager.getInstance();
             var queue = tm.getTTSQueue(botAndGuild);
-            TTSVoiceEntry next;
-            synchronized (queue) {
-                next = queue.poll();
-            }
+            var next = queue.poll();
             if (next == null) return false;
+            next.trace().mark(UtteranceTrace.Stage.DEQUEUED);
             loading = true;
-            loadThread = Thread.currentThread();
 
-            AudioTrack track;
-            try {
-                CompletableFuture<Pair<VoiceTrackLoader, AudioTrack>> loaded;
-                synchronized (previsionLoadTracks) {
-                    loaded = previsionLoadTracks.remove(next);
-                }
-                synchronized (loaders) {
-                    loaders.remove(next);
-                }
+            CompletableFuture<LoadedVoice> load;
+            synchronized (previsionLoadTracks) {
+                load = previsionLoadTracks.remove(next);
+            }
+            if (load == null)
+                load = load(next, false);
 
-                if (loaded == null) {
-                    var l = vlm.getTrackLoader(next.voice());
-                    if (l != null) {
-                        l.setAudioScheduler(this);
-                        loaded = l.loaded().thenApply(n -> Pair.of(l, n));
-                    }
-                }
+            currentLoad = load;
+            var cl = load;
+            load.whenComplete((loaded, ex) -> onLoaded(cl, next, loaded, ex));
 
-                if (loaded == null) {
-                    startCoolDown();
-                    loading = false;
-                    loadThread = null;
-                    return true;
-                }
+            prefetch(queue.stream().limit(Main.CONFIG.prefetchWindow()).toList());
+            return true;
+        }
+    }
+
+    private void prefetch(List<TTSVoiceEntry> entries) {
+        var planner = PrefetchPlanner.getInstance();
+        long interval = Math.max(Main.getServerConfig(botAndGuild.guildId()).getReadAroundInterval(), 0);
+        for (int i = 0; i < entries.size(); i++) {
+            var entry = entries.get(i);
+            if (i >= planner.getWindow(entry.voice().voiceType(), interval))
+                continue;
 
-                var lg = loaded.get();
-                track = lg.getRight();
-
-                if (currentTrackLoader != null)
-                    currentTrackLoader.end();
-
-                currentTrackLoader = lg.getLeft();
-
-                if (!Main.getServerConfig(botAndGuild.guildId()).isOverwriteAloud()) {
-                    synchronized (queue) {
-                        List<TTSVoiceEntry> qc = queue.stream().filter(n -> !previsionLoadTracks.containsKey(n)).toList();
-                        int lc = FNMath.clamp(qc.size(), 0, previsionLoadCount);
-                        if (lc >= 1) {
-                            for (int i = 0; i < lc; i++) {
-                                var l = qc.get(i);
-                                var ll = CompletableFuture.supplyAsync(() -> {
-                                    var tl = vlm.getTrackLoader(l.voice());
-                                    if (tl != null)
-                                        tl.setAudioScheduler(this);
-                                    return tl;
-                                }, getExecutorService()).thenApplyAsync(n -> {
-                                    try {
-                                        synchronized (loaders) {
-                                            loaders.put(l, n);
-                                        }
-                                        return Pair.of(n, n.loaded().get());
-                                    } catch (InterruptedException | ExecutionException e) {
-                                        throw new RuntimeException(e);
-                                    }
-                                }, getExecutorService());
-                                synchronized (previsionLoadTracks) {
-                                    previsionLoadTracks.put(l, ll);
-                                }
-                            }
-                        }
-                    }
+            synchronized (previsionLoadTracks) {
+                if (previsionLoadTracks.containsKey(entry))
+                    continue;
+            }
+            if (!planner.tryAcquire())
+                return;
+
+            var load = load(entry, true);
+            synchronized (previsionLoadTracks) {
+                previsionLoadTracks.put(entry, load);
+            }
+        }
+    }
+
+    private CompletableFuture<LoadedVoice> load(TTSVoiceEntry entry, boolean prefetch) {
+        var vlm = VoiceLoaderManager.getInstance();
+        var ret = new CompletableFuture<LoadedVoice>();
+        long startTime = System.currentTimeMillis();
+        if (prefetch)
+            ret.whenComplete((r, e) -> PrefetchPlanner.getInstance().release());
+        executor.compose(() -> {
+            if (ret.isDone())
+                return CompletableFuture.<LoadedVoice>failedFuture(new CancellationException());
+            var key = OpusFrameCache.getInstance().isEnabled() ? vlm.getCacheKey(entry.voice()) : null;
+            var frames = key == null ? null : OpusFrameCache.getInstance().get(key);
+            if (frames != null) {
+                entry.trace().mark(UtteranceTrace.Stage.TRACK_LOADED);
+                return CompletableFuture.completedFuture(new LoadedVoice(null, null, frames, key));
+            }
+
+            var trackLoader = vlm.getTrackLoader(entry.voice(), entry.trace(), prefetch);
+            ret.whenComplete((r, e) -> {
+                if (ret.isCancelled())
+                    trackLoader.cancel(false);
+            });
+            return trackLoader.thenApply(l -> l == null ? null : new LoadedVoice(l, null, null, key));
+        }).thenCompose(loaded -> {
+            if (loaded == null || loaded.loader() == null)
+                return CompletableFuture.completedFuture(loaded);
+            var l = loaded.loader();
+            l.setAudioScheduler(this);
+            synchronized (loaders) {
+                loaders.put(entry, l);
+            }
+            return l.loaded().thenApply(track -> {
+                entry.trace().mark(UtteranceTrace.Stage.TRACK_LOADED);
+                return new LoadedVoice(l, track, null, loaded.frameCacheKey());
+            });
+        }).whenComplete((loaded, ex) -> {
+            if (ex != null) {
+                ret.completeExceptionally(ex);
+                return;
+            }
+            if (loaded != null && loaded.frames() == null)
+                PrefetchPlanner.getInstance().recordLatency(entry.voice().voiceType(), System.currentTimeMillis() - startTime);
+            if (!ret.complete(loaded) && loaded != null && loaded.loader() != null) {
+                synchronized (loaders) {
+                    loaders.remove(entry);
                 }
+                loaded.loader().end();
+            }
+        });
+        return ret;
+    }
 
-            } catch (Exception ex) {
-                startCoolDown();
+    private void onLoaded(CompletableFuture<LoadedVoice> load, TTSVoiceEntry entry, LoadedVoice loaded, Throwable ex) {
+        synchronized (nextLock) {
+            synchronized (loaders) {
+                loaders.remove(entry);
+            }
+
+            if (currentLoad != load) {
+                if (loaded != null && loaded.loader() != null)
+                    loaded.loader().end();
+                return;
+            }
+            currentLoad = null;
+
+            if (ex != null || loaded == null || (loaded.track() == null && loaded.frames() == null)) {
+                if (loaded != null && loaded.loader() != null)
+                    loaded.loader().end();
                 loading = false;
-                loadThread = null;
-                return true;
+                TraceRecorder.getInstance().record(botAndGuild, entry);
+                startCoolDown();
+                return;
+            }
+
+            if (currentTrackLoader != null)
+                currentTrackLoader.end();
+            currentTrackLoader = loaded.loader();
+            entry.trace().mark(UtteranceTrace.Stage.PLAY);
+            var voiceType = entry.voice().voiceType();
+            long firstAudio = entry.trace().getElapsed(UtteranceTrace.Stage.ENQUEUED, UtteranceTrace.Stage.PLAY);
+            if (!entry.continued() && firstAudio >= 0)
+                Metrics.getInstance().histogram("ttsbot_time_to_first_audio_seconds", "Time from queueing an utterance to the start of its playback", "engine", voiceType.getEngineName()).observeNanos(firstAudio);
+
+            if (loaded.frames() != null) {
+                PrefetchPlanner.getInstance().recordPlayback(voiceType, (long) loaded.frames().size() * FRAME_DURATION);
+                sendHandler.playFrames(loaded.frames(), () -> {
+                    finishTrace(entry);
+                    startCoolDown();
+                });
+            } else {
+                currentEntry = entry;
+                play(loaded.track(), voiceType.getVolume(), loaded.frameCacheKey());
             }
-            play(track, next.voice().voiceType().getVolume());
             loading = false;
-            loadThread = null;
-            return true;
         }
     }
 
@@ -210,14 +329,7 @@ public class AudioScheduler extends AudioEventAdapter {
         return destroy;
     }
 
-    private class CoolDownThread extends Thread {
-        @Override
-        public void run() {
-            try {
-                Thread.sleep(1000);
-                next();
-            } catch (InterruptedException ignored) {
-            }
-        }
+    private static record LoadedVoice(VoiceTrackLoader loader, AudioTrack track, List<byte[]> frames,
+                                      String frameCacheKey) {
     }
 }
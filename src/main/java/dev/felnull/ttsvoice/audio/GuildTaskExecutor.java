@@ -0,0 +1,110 @@
+package dev.felnull.ttsvoice.audio;
+
+import dev.felnull.ttsvoice.util.ThreadUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+public class GuildTaskExecutor implements Executor {
+    private static final ExecutorService SHARED_EXECUTOR = ThreadUtils.createExecutor("voice-tack-loader-%d", Runtime.getRuntime().availableProcessors());
+    private static final CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+    private final Queue<Task> tasks = new ArrayDeque<>();
+    private final int maxConcurrency;
+    private int running;
+    private boolean shutdown;
+
+    public GuildTaskExecutor(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (!offer(new Task(() -> {
+            command.run();
+            return COMPLETED;
+        }, () -> {
+        })))
+            throw new RejectedExecutionException("Guild task executor has been shut down");
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        return compose(() -> CompletableFuture.completedFuture(supplier.get()));
+    }
+
+    public <T> CompletableFuture<T> compose(Supplier<CompletableFuture<T>> supplier) {
+        var future = new CompletableFuture<T>();
+        var task = new Task(() -> {
+            if (future.isDone())
+                return COMPLETED;
+            try {
+                supplier.get().whenComplete((r, e) -> {
+                    if (e != null) {
+                        future.completeExceptionally(e);
+                    } else {
+                        future.complete(r);
+                    }
+                });
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+            return future;
+        }, () -> future.completeExceptionally(new RejectedExecutionException("Guild task executor has been shut down")));
+        if (!offer(task))
+            task.reject().run();
+        return future;
+    }
+
+    private boolean offer(Task task) {
+        synchronized (tasks) {
+            if (shutdown)
+                return false;
+            tasks.add(task);
+        }
+        schedule();
+        return true;
+    }
+
+    private void schedule() {
+        synchronized (tasks) {
+            while (running < maxConcurrency && !tasks.isEmpty()) {
+                var task = tasks.poll();
+                running++;
+                SHARED_EXECUTOR.execute(() -> {
+                    try {
+                        task.run().get().whenComplete((r, e) -> finish());
+                    } catch (Throwable ex) {
+                        finish();
+                        throw ex;
+                    }
+                });
+            }
+        }
+    }
+
+    private void finish() {
+        synchronized (tasks) {
+            running--;
+        }
+        schedule();
+    }
+
+    public void shutdown() {
+        List<Task> pending;
+        synchronized (tasks) {
+            shutdown = true;
+            pending = new ArrayList<>(tasks);
+            tasks.clear();
+        }
+        pending.forEach(n -> n.reject().run());
+    }
+
+    private static record Task(Supplier<CompletableFuture<?>> run, Runnable reject) {
+    }
+}
@@ -0,0 +1,81 @@
+package dev.felnull.ttsvoice.audio;
+
+import dev.felnull.ttsvoice.Main;
+import dev.felnull.ttsvoice.audio.loader.VoiceLoaderManager;
+import dev.felnull.ttsvoice.metrics.Counter;
+import dev.felnull.ttsvoice.metrics.Metrics;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OpusFrameCache {
+    private static final OpusFrameCache INSTANCE = new OpusFrameCache();
+    public static final int MAX_CLIP_SIZE = 256 * 1024;
+    private final Map<String, Clip> clips = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSize;
+    private final Counter hits = VoiceLoaderManager.cacheRequests("opus", "hit");
+    private final Counter misses = VoiceLoaderManager.cacheRequests("opus", "miss");
+    private final Counter evictions = Metrics.getInstance().counter("ttsbot_voice_cache_evictions_total", "Number of entries evicted from the voice cache", "cache", "opus");
+
+    private OpusFrameCache() {
+        Metrics.getInstance().gauge("ttsbot_voice_cache_entries", "Number of entries in the voice cache", () -> {
+            synchronized (this) {
+                return Map.of(Metrics.labels("cache", "opus"), clips.size());
+            }
+        });
+        Metrics.getInstance().gauge("ttsbot_voice_cache_bytes", "Size of the voice cache in bytes", () -> {
+            synchronized (this) {
+                return Map.of(Metrics.labels("cache", "opus"), totalSize);
+            }
+        });
+    }
+
+    public static OpusFrameCache getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return Main.CONFIG.opusCacheSize() > 0;
+    }
+
+    private long getMaxSize() {
+        return Main.CONFIG.opusCacheSize() * 1024L * 1024L;
+    }
+
+    public synchronized List<byte[]> get(String key) {
+        var clip = clips.get(key);
+        if (clip == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return clip.frames();
+    }
+
+    public synchronized void put(String key, List<byte[]> frames) {
+        int size = 0;
+        for (byte[] frame : frames) {
+            size += frame.length;
+        }
+        if (frames.isEmpty() || size > MAX_CLIP_SIZE)
+            return;
+
+        var old = clips.put(key, new Clip(List.copyOf(frames), size));
+        if (old != null)
+            totalSize -= old.size();
+        totalSize += size;
+
+        long max = getMaxSize();
+        Iterator<Clip> it = clips.values().iterator();
+        while (totalSize > max && it.hasNext()) {
+            totalSize -= it.next().size();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static record Clip(List<byte[]> frames, int size) {
+    }
+}
@@ -0,0 +1,82 @@
+package dev.felnull.ttsvoice.audio;
+
+import dev.felnull.ttsvoice.Main;
+import dev.felnull.ttsvoice.metrics.Metrics;
+import dev.felnull.ttsvoice.voice.VoiceType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PrefetchPlanner {
+    private static final PrefetchPlanner INSTANCE = new PrefetchPlanner();
+    private static final double EWMA_ALPHA = 0.3d;
+    private static final int DEFAULT_WINDOW = 3;
+    private final Map<String, EngineStats> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private PrefetchPlanner() {
+        Metrics.getInstance().gauge("ttsbot_prefetch_in_flight", "Number of in-flight prefetch loads", () -> Map.of("", inFlight.get()));
+    }
+
+    public static PrefetchPlanner getInstance() {
+        return INSTANCE;
+    }
+
+    private EngineStats getStats(VoiceType voiceType) {
+        return stats.computeIfAbsent(voiceType.getEngineName(), n -> new EngineStats());
+    }
+
+    public int getWindow(VoiceType voiceType, long interval) {
+        int max = Main.CONFIG.prefetchWindow();
+        var s = getStats(voiceType);
+        double latency = s.latency;
+        double playback = s.playback;
+        if (latency == 0 || playback == 0)
+            return Math.min(DEFAULT_WINDOW, max);
+
+        int window = (int) Math.ceil(latency / (playback + interval)) + 1;
+        return Math.min(window, max);
+    }
+
+    public void recordLatency(VoiceType voiceType, long time) {
+        getStats(voiceType).updateLatency(time);
+    }
+
+    public void recordPlayback(VoiceType voiceType, long time) {
+        if (time > 0)
+            getStats(voiceType).updatePlayback(time);
+    }
+
+    public boolean tryAcquire() {
+        int max = Main.CONFIG.prefetchConcurrency();
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= max)
+                return false;
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private static class EngineStats {
+        private volatile double latency;
+        private volatile double playback;
+
+        private synchronized void updateLatency(double time) {
+            latency = latency == 0 ? time : latency + EWMA_ALPHA * (time - latency);
+        }
+
+        private synchronized void updatePlayback(double time) {
+            playback = playback == 0 ? time : playback + EWMA_ALPHA * (time - playback);
+        }
+    }
+}
@@ -1,25 +1,33 @@
 package dev.felnull.ttsvoice.audio;
 
 import com.sedmelluq.discord.lavaplayer.container.MediaContainerRegistry;
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManagers;
 import com.sedmelluq.discord.lavaplayer.source.http.HttpAudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import dev.felnull.ttsvoice.audio.stream.VoiceStreamSourceManager;
 import dev.felnull.ttsvoice.tts.BotAndGuild;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class VoiceAudioPlayerManager {
     private static final Logger LOGGER = LogManager.getLogger(VoiceAudioPlayerManager.class);
     private static final VoiceAudioPlayerManager INSTANCE = new VoiceAudioPlayerManager();
     private final AudioPlayerManager audioPlayerManager;
+    private final VoiceStreamSourceManager voiceStreamSourceManager = new VoiceStreamSourceManager();
     private final Map<BotAndGuild, AudioScheduler> SCHEDULERS = new HashMap<>();
 
     public VoiceAudioPlayerManager() {
         this.audioPlayerManager = new DefaultAudioPlayerManager();
+        audioPlayerManager.registerSourceManager(voiceStreamSourceManager);
         AudioSourceManagers.registerLocalSource(audioPlayerManager);
         audioPlayerManager.registerSourceManager(new HttpAudioSourceManager(MediaContainerRegistry.DEFAULT_REGISTRY));
     }
@@ -42,7 +50,46 @@ public class VoiceAudioPlayerManager {
         }
     }
 
+    public AudioScheduler getSchedulerIfPresent(BotAndGuild bag) {
+        synchronized (SCHEDULERS) {
+            return SCHEDULERS.get(bag);
+        }
+    }
+
     public AudioPlayerManager getAudioPlayerManager() {
         return audioPlayerManager;
     }
+
+    public VoiceStreamSourceManager getVoiceStreamSourceManager() {
+        return voiceStreamSourceManager;
+    }
+
+    public CompletableFuture<AudioTrack> loadTrack(String identifier) {
+        CompletableFuture<AudioTrack> ret = new CompletableFuture<>();
+        audioPlayerManager.loadItem(identifier, new AudioLoadResultHandler() {
+            @Override
+            public void trackLoaded(AudioTrack track) {
+                ret.complete(track);
+            }
+
+            @Override
+            public void playlistLoaded(AudioPlaylist playlist) {
+                LOGGER.error("Multiple audio tracks");
+                ret.complete(null);
+            }
+
+            @Override
+            public void noMatches() {
+                LOGGER.error("Audio not found");
+                ret.complete(null);
+            }
+
+            @Override
+            public void loadFailed(FriendlyException ex) {
+                LOGGER.error("Audio load failure", ex);
+                ret.complete(null);
+            }
+        });
+        return ret;
+    }
 }
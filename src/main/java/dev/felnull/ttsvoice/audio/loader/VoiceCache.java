@@ -2,17 +2,20 @@ package dev.felnull.ttsvoice.audio.loader;
 
 import dev.felnull.ttsvoice.Main;
 import dev.felnull.ttsvoice.audio.player.TmpFileVoiceTrackLoader;
+import dev.felnull.ttsvoice.audio.player.VoiceTrackLoader;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class VoiceCache {
     private final TmpFileVoiceTrackLoader originalTrackLoader;
-    private final List<TmpFileVoiceTrackLoader> children = new ArrayList<>();
+    private final List<VoiceTrackLoader> children = new ArrayList<>();
+    private final boolean persistent;
     private long lastTime;
 
-    public VoiceCache(TmpFileVoiceTrackLoader trackLoader) {
+    public VoiceCache(TmpFileVoiceTrackLoader trackLoader, boolean persistent) {
         this.originalTrackLoader = trackLoader;
+        this.persistent = persistent;
         this.lastTime = System.currentTimeMillis();
     }
 
@@ -32,11 +35,17 @@ public class VoiceCache {
         update();
         if (originalTrackLoader == null)
             return null;
+        if (persistent && !originalTrackLoader.getTmpFile().exists())
+            return null;
         var c = originalTrackLoader.createCopy();
+        addChild(c);
+        return c;
+    }
+
+    public void addChild(VoiceTrackLoader trackLoader) {
         synchronized (children) {
-            children.add(c);
+            children.add(trackLoader);
         }
-        return c;
     }
 
     public boolean isUnnecessary() {
@@ -47,14 +56,20 @@ public class VoiceCache {
 
         if (isTimeOut() && originalTrackLoader.isAlready()) {
             synchronized (children) {
-                return children.stream().allMatch(TmpFileVoiceTrackLoader::isAlready);
+                return children.stream().allMatch(VoiceTrackLoader::isAlready);
             }
         }
         return false;
     }
 
+    public long getSize() {
+        if (originalTrackLoader == null)
+            return 0;
+        return originalTrackLoader.getTmpFile().length();
+    }
+
     public void deleteCacheFile() {
-        if (originalTrackLoader == null) return;
+        if (originalTrackLoader == null || persistent) return;
 
         var f = originalTrackLoader.getTmpFile();
         if (f.exists())
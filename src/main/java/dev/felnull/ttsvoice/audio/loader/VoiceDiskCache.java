@@ -0,0 +1,223 @@
+package dev.felnull.ttsvoice.audio.loader;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import dev.felnull.ttsvoice.Main;
+import dev.felnull.ttsvoice.metrics.Counter;
+import dev.felnull.ttsvoice.metrics.Metrics;
+import dev.felnull.ttsvoice.voice.VoiceType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+public class VoiceDiskCache {
+    private static final Logger LOGGER = LogManager.getLogger(VoiceDiskCache.class);
+    private static final VoiceDiskCache INSTANCE = new VoiceDiskCache();
+    private static final Gson GSON = new Gson();
+    private static final File CACHE_FOLDER = new File("./voice_cache");
+    private static final File INDEX_FILE = new File(CACHE_FOLDER, "index.json");
+    private static final File INDEX_TMP_FILE = new File(CACHE_FOLDER, "index.json.tmp");
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSize;
+    private boolean loaded;
+    private boolean dirty;
+    private final Counter evictions = Metrics.getInstance().counter("ttsbot_voice_cache_evictions_total", "Number of entries evicted from the voice cache", "cache", "disk");
+
+    private VoiceDiskCache() {
+        Metrics.getInstance().gauge("ttsbot_voice_cache_entries", "Number of entries in the voice cache", () -> {
+            synchronized (this) {
+                return Map.of(Metrics.labels("cache", "disk"), entries.size());
+            }
+        });
+        Metrics.getInstance().gauge("ttsbot_voice_cache_bytes", "Size of the voice cache in bytes", () -> {
+            synchronized (this) {
+                return Map.of(Metrics.labels("cache", "disk"), totalSize);
+            }
+        });
+    }
+
+    public static VoiceDiskCache getInstance() {
+        return INSTANCE;
+    }
+
+    public static String createKey(VoiceType voiceType, String text) {
+        return Hashing.sha256().hashString(voiceType.getId() + "\n" + voiceType.getCacheParameters() + "\n" + text, StandardCharsets.UTF_8).toString();
+    }
+
+    public boolean isEnabled() {
+        return Main.CONFIG.voiceCacheSize() > 0;
+    }
+
+    private long getMaxSize() {
+        return Main.CONFIG.voiceCacheSize() * 1024L * 1024L;
+    }
+
+    private File getFile(String key) {
+        return new File(CACHE_FOLDER, key);
+    }
+
+    public synchronized File get(String key) {
+        load();
+        var entry = entries.get(key);
+        if (entry == null)
+            return null;
+
+        var file = getFile(key);
+        if (!file.exists()) {
+            entries.remove(key);
+            totalSize -= entry.size;
+            dirty = true;
+            return null;
+        }
+
+        entry.lastAccess = System.currentTimeMillis();
+        dirty = true;
+        return file;
+    }
+
+    public synchronized File put(String key, File file) throws IOException {
+        load();
+        var cacheFile = getFile(key);
+        Files.move(file.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        long size = cacheFile.length();
+        var old = entries.put(key, new Entry(size, System.currentTimeMillis()));
+        if (old != null)
+            totalSize -= old.size;
+        totalSize += size;
+        dirty = true;
+
+        evict();
+        return cacheFile;
+    }
+
+    private void evict() {
+        long max = getMaxSize();
+        long hardMax = max + max / 4;
+        long protectTime = (long) Main.CONFIG.cashTime() * 60L * 1000L;
+        long now = System.currentTimeMillis();
+        var it = entries.entrySet().iterator();
+        while (totalSize > max && it.hasNext()) {
+            var entry = it.next();
+            if (totalSize <= hardMax && now - entry.getValue().lastAccess < protectTime)
+                break;
+
+            var file = getFile(entry.getKey());
+            if (file.exists() && !file.delete())
+                continue;
+
+            it.remove();
+            totalSize -= entry.getValue().size;
+            dirty = true;
+            evictions.increment();
+        }
+    }
+
+    private void load() {
+        if (loaded) return;
+        loaded = true;
+
+        if (!CACHE_FOLDER.exists() && !CACHE_FOLDER.mkdirs()) {
+            LOGGER.error("Failed to create voice cache folder");
+            return;
+        }
+
+        List<Map.Entry<String, Entry>> loadEntries = new ArrayList<>();
+        if (INDEX_FILE.exists()) {
+            try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(INDEX_FILE), StandardCharsets.UTF_8))) {
+                var jo = GSON.fromJson(reader, JsonObject.class);
+                for (JsonElement element : jo.getAsJsonArray("entries")) {
+                    var ejo = element.getAsJsonObject();
+                    loadEntries.add(Map.entry(ejo.get("key").getAsString(), new Entry(ejo.get("size").getAsLong(), ejo.get("last_access").getAsLong())));
+                }
+            } catch (Exception ex) {
+                LOGGER.error("Failed to load voice cache index, rebuild it from the cache folder", ex);
+                loadEntries.clear();
+            }
+        }
+
+        var files = CACHE_FOLDER.listFiles();
+        if (files != null) {
+            Set<String> indexed = new HashSet<>();
+            loadEntries.forEach(n -> indexed.add(n.getKey()));
+            for (File file : files) {
+                if (isCacheFile(file) && !indexed.contains(file.getName())) {
+                    loadEntries.add(Map.entry(file.getName(), new Entry(file.length(), file.lastModified())));
+                    dirty = true;
+                }
+            }
+        }
+
+        loadEntries.sort(Comparator.comparingLong(n -> n.getValue().lastAccess));
+        for (Map.Entry<String, Entry> entry : loadEntries) {
+            var file = getFile(entry.getKey());
+            if (!file.exists())
+                continue;
+            entry.getValue().size = file.length();
+            entries.put(entry.getKey(), entry.getValue());
+            totalSize += entry.getValue().size;
+        }
+
+        if (files != null) {
+            for (File file : files) {
+                if (!file.equals(INDEX_FILE) && !entries.containsKey(file.getName()))
+                    file.delete();
+            }
+        }
+
+        evict();
+        LOGGER.info("Loaded voice cache index (" + entries.size() + " entries, " + totalSize / 1024L + "KB)");
+    }
+
+    public synchronized void save() {
+        if (!loaded || !dirty) return;
+
+        var ja = new JsonArray();
+        entries.forEach((key, entry) -> {
+            var ejo = new JsonObject();
+            ejo.addProperty("key", key);
+            ejo.addProperty("size", entry.size);
+            ejo.addProperty("last_access", entry.lastAccess);
+            ja.add(ejo);
+        });
+        var jo = new JsonObject();
+        jo.add("entries", ja);
+
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(INDEX_TMP_FILE), StandardCharsets.UTF_8))) {
+                GSON.toJson(jo, writer);
+            }
+            try {
+                Files.move(INDEX_TMP_FILE.toPath(), INDEX_FILE.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(INDEX_TMP_FILE.toPath(), INDEX_FILE.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            dirty = false;
+        } catch (Exception ex) {
+            LOGGER.error("Failed to save voice cache index", ex);
+        }
+    }
+
+    private static boolean isCacheFile(File file) {
+        return file.isFile() && file.getName().matches("[0-9a-f]{64}");
+    }
+
+    private static class Entry {
+        private long size;
+        private long lastAccess;
+
+        private Entry(long size, long lastAccess) {
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
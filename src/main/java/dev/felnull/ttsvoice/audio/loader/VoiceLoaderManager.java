@@ -1,37 +1,63 @@
 package dev.felnull.ttsvoice.audio.loader;
 
-import dev.felnull.fnjl.util.FNDataUtil;
+import dev.felnull.ttsvoice.audio.player.StreamVoiceTrackLoader;
 import dev.felnull.ttsvoice.audio.player.TmpFileVoiceTrackLoader;
 import dev.felnull.ttsvoice.audio.player.URLVoiceTrackLoader;
 import dev.felnull.ttsvoice.audio.player.VoiceTrackLoader;
+import dev.felnull.ttsvoice.audio.stream.VoiceStreamFile;
+import dev.felnull.ttsvoice.metrics.Counter;
+import dev.felnull.ttsvoice.metrics.Metrics;
 import dev.felnull.ttsvoice.tts.TTSVoice;
+import dev.felnull.ttsvoice.tts.UtteranceTrace;
+import dev.felnull.ttsvoice.util.ThreadUtils;
 import dev.felnull.ttsvoice.voice.URLVoiceType;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class VoiceLoaderManager {
     private static final Logger LOGGER = LogManager.getLogger(VoiceLoaderManager.class);
     private static final VoiceLoaderManager INSTANCE = new VoiceLoaderManager();
     private static final File TMP_FOLDER = new File("./tmp");
-    private final ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new BasicThreadFactory.Builder().namingPattern("voice-loader-%d").daemon(true).build());
-    private final Map<TTSVoice, VoiceCache> caches = new HashMap<>();
-    private final Map<TTSVoice, CompletableFuture<VoiceCache>> tasks = new HashMap<>();
+    private final ExecutorService executorService = ThreadUtils.createExecutor("voice-loader-%d", Runtime.getRuntime().availableProcessors());
+    private final ExecutorService transferExecutorService = ThreadUtils.createCachedExecutor("voice-transfer-%d");
+    private final Map<RequestKey, VoiceCache> caches = new HashMap<>();
+    private final Map<RequestKey, LoadTask> tasks = new HashMap<>();
+    private final Counter memoryHits = cacheRequests("memory", "hit");
+    private final Counter memoryMisses = cacheRequests("memory", "miss");
+    private final Counter diskHits = cacheRequests("disk", "hit");
+    private final Counter diskMisses = cacheRequests("disk", "miss");
+    private final Counter memoryEvictions = Metrics.getInstance().counter("ttsbot_voice_cache_evictions_total", "Number of entries evicted from the voice cache", "cache", "memory");
+
+    private VoiceLoaderManager() {
+        Metrics.getInstance().gauge("ttsbot_voice_cache_entries", "Number of entries in the voice cache", () -> {
+            synchronized (caches) {
+                return Map.of(Metrics.labels("cache", "memory"), caches.size());
+            }
+        });
+        Metrics.getInstance().gauge("ttsbot_voice_cache_bytes", "Size of the voice cache in bytes", () -> {
+            synchronized (caches) {
+                return Map.of(Metrics.labels("cache", "memory"), caches.values().stream().mapToLong(VoiceCache::getSize).sum());
+            }
+        });
+    }
 
     public static VoiceLoaderManager getInstance() {
         return INSTANCE;
     }
 
+    public static Counter cacheRequests(String cache, String result) {
+        return Metrics.getInstance().counter("ttsbot_voice_cache_requests_total", "Number of voice cache lookups", "cache", cache, "result", result);
+    }
+
     public void init() throws IOException {
         FileUtils.deleteDirectory(TMP_FOLDER);
         TMP_FOLDER.mkdirs();
@@ -40,9 +66,11 @@ public class VoiceLoaderManager {
         TimerTask cashManageTask = new TimerTask() {
             public void run() {
                 clearCash();
+                VoiceDiskCache.getInstance().save();
             }
         };
         timer.scheduleAtFixedRate(cashManageTask, 0, 60 * 1000);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> VoiceDiskCache.getInstance().save(), "voice-cache-save"));
     }
 
     public File getTmpFolder(UUID id) {
@@ -51,8 +79,8 @@ public class VoiceLoaderManager {
 
     private void clearCash() {
         synchronized (caches) {
-            List<TTSVoice> rm = new ArrayList<>();
-            for (Map.Entry<TTSVoice, VoiceCache> entry : caches.entrySet()) {
+            List<RequestKey> rm = new ArrayList<>();
+            for (Map.Entry<RequestKey, VoiceCache> entry : caches.entrySet()) {
                 try {
                     if (entry.getValue().isUnnecessary()) {
                         entry.getValue().deleteCacheFile();
@@ -64,63 +92,161 @@ public class VoiceLoaderManager {
                 }
             }
             rm.forEach(caches::remove);
+            memoryEvictions.increment(rm.size());
         }
     }
 
-    public VoiceTrackLoader getTrackLoader(TTSVoice voice) {
-        try {
-            return getTrackLoader_(voice);
-        } catch (Exception ex) {
-            LOGGER.error("Failed to load audio data", ex);
-        }
-        return null;
+    public CompletableFuture<VoiceTrackLoader> getTrackLoader(TTSVoice voice, UtteranceTrace trace, boolean prefetch) {
+        var ret = new CompletableFuture<VoiceTrackLoader>();
+        CompletableFuture.supplyAsync(() -> {
+            if (ret.isDone())
+                return CompletableFuture.<VoiceTrackLoader>completedFuture(null);
+            try {
+                return getTrackLoader_(voice, ret, trace, prefetch);
+            } catch (Exception ex) {
+                throw new CompletionException(ex);
+            }
+        }, executorService).thenCompose(n -> n).whenComplete((l, ex) -> {
+            if (ex != null) {
+                if (!ret.isCancelled())
+                    LOGGER.error("Failed to load audio data", ex);
+                ret.complete(null);
+            } else if (!ret.complete(l) && l != null) {
+                l.end();
+            }
+        });
+        return ret;
     }
 
-    private VoiceTrackLoader getTrackLoader_(TTSVoice voice) throws Exception {
-        if (!voice.isCached() && voice.voiceType() instanceof URLVoiceType urlVoiceType) {
-            var u = urlVoiceType.getSayVoiceSoundURL(voice.sayVoice());
-            if (u != null)
-                return new URLVoiceTrackLoader(u);
+    public String getCacheKey(TTSVoice voice) {
+        if (!voice.isCached())
+            return null;
+        return VoiceDiskCache.createKey(voice.voiceType(), voice.voiceType().toSayVoiceText(voice.sayVoice()));
+    }
+
+    private CompletableFuture<VoiceTrackLoader> getTrackLoader_(TTSVoice voice, CompletableFuture<VoiceTrackLoader> waiter, UtteranceTrace trace, boolean prefetch) throws Exception {
+        if (!voice.isCached()) {
+            if (voice.voiceType() instanceof URLVoiceType urlVoiceType) {
+                var u = urlVoiceType.getSayVoiceSoundURL(voice.sayVoice());
+                if (u != null)
+                    return CompletableFuture.completedFuture(new URLVoiceTrackLoader(u));
+            }
+            return startLoadTask(null, voice, null, null, waiter, trace, prefetch);
         }
+
+        var text = voice.voiceType().toSayVoiceText(voice.sayVoice());
+        var requestKey = new RequestKey(voice.voiceType().getId(), voice.voiceType().getCacheParameters(), text);
         synchronized (caches) {
-            var c = caches.get(voice);
-            if (c != null)
-                return c.createTrackLoader();
+            var c = caches.get(requestKey);
+            if (c != null) {
+                var l = c.createTrackLoader();
+                if (l != null) {
+                    memoryHits.increment();
+                    return CompletableFuture.completedFuture(l);
+                }
+            }
         }
+        memoryMisses.increment();
 
-        CompletableFuture<VoiceCache> cf;
+        var dc = VoiceDiskCache.getInstance();
+        String key = null;
+        if (dc.isEnabled()) {
+            key = VoiceDiskCache.createKey(voice.voiceType(), text);
+            var f = dc.get(key);
+            if (f != null) {
+                diskHits.increment();
+                return CompletableFuture.completedFuture(new TmpFileVoiceTrackLoader(f, true));
+            }
+            diskMisses.increment();
+        }
+
+        return startLoadTask(requestKey, voice, text, key, waiter, trace, prefetch);
+    }
+
+    private CompletableFuture<VoiceTrackLoader> startLoadTask(RequestKey requestKey, TTSVoice voice, String text, String cacheKey, CompletableFuture<VoiceTrackLoader> waiter, UtteranceTrace trace, boolean prefetch) {
+        trace.mark(UtteranceTrace.Stage.SYNTHESIS_START);
+        LoadTask task;
         synchronized (tasks) {
-            cf = tasks.computeIfAbsent(voice, v -> {
-                var icf = CompletableFuture.supplyAsync(() -> {
-                    var l = loadTmpFileVoice(v);
-                    if (l == null)
-                        return null;
-                    VoiceCache c;
-                    synchronized (caches) {
-                        l.setAlready(true);
-                        c = new VoiceCache(l);
-                        caches.put(v, c);
-                    }
-                    return c;
-                }, executorService);
-                icf.thenRunAsync(() -> {
-                    synchronized (tasks) {
-                        tasks.remove(voice);
-                    }
-                }, executorService);
-                return icf;
-            });
+            if (requestKey == null) {
+                var t = new LoadTask();
+                executorService.execute(() -> runLoadTask(t, null, voice, text, null, prefetch));
+                task = t;
+            } else {
+                task = tasks.computeIfAbsent(requestKey, k -> {
+                    var t = new LoadTask();
+                    executorService.execute(() -> runLoadTask(t, k, voice, text, cacheKey, prefetch));
+                    return t;
+                });
+            }
+            task.waiters++;
         }
-        var cg = cf.get();
-        if (cg == null)
-            return null;
-        return cg.createTrackLoader();
+        waiter.whenComplete((r, e) -> {
+            if (waiter.isCancelled())
+                cancelLoadTask(requestKey, task);
+        });
+        return task.future.thenApply(s -> {
+            trace.mark(UtteranceTrace.Stage.SYNTHESIS_END);
+            if (s == null)
+                return null;
+            var l = new StreamVoiceTrackLoader(s, requestKey != null);
+            if (requestKey != null)
+                task.addLoader(l);
+            return l;
+        });
     }
 
-    private TmpFileVoiceTrackLoader loadTmpFileVoice(TTSVoice voice) {
+    private void runLoadTask(LoadTask task, RequestKey requestKey, TTSVoice voice, String text, String cacheKey, boolean prefetch) {
+        synchronized (tasks) {
+            if (task.cancelled) {
+                task.future.cancel(false);
+                return;
+            }
+            task.thread = Thread.currentThread();
+        }
+
+        VoiceStreamFile stream;
+        try {
+            stream = openVoiceStream(task, requestKey, voice, text, cacheKey, prefetch);
+        } finally {
+            synchronized (tasks) {
+                task.thread = null;
+                Thread.interrupted();
+            }
+        }
+
+        if (stream == null && requestKey != null) {
+            synchronized (tasks) {
+                tasks.remove(requestKey, task);
+            }
+        }
+        task.future.complete(stream);
+    }
+
+    private void cancelLoadTask(RequestKey requestKey, LoadTask task) {
+        synchronized (tasks) {
+            task.waiters--;
+            if (task.waiters > 0 || task.future.isDone())
+                return;
+
+            task.cancelled = true;
+            if (requestKey != null)
+                tasks.remove(requestKey, task);
+            if (task.thread != null)
+                task.thread.interrupt();
+        }
+    }
+
+    private VoiceStreamFile openVoiceStream(LoadTask task, RequestKey requestKey, TTSVoice voice, String text, String cacheKey, boolean prefetch) {
         InputStream voiceStream;
         try {
-            voiceStream = voice.voiceType().getSayVoiceSound(voice.sayVoice());
+            if (text != null) {
+                voiceStream = voice.voiceType().getSound(text, prefetch);
+            } else {
+                voiceStream = voice.voiceType().getSayVoiceSound(voice.sayVoice());
+            }
+        } catch (InterruptedException ex) {
+            LOGGER.debug("Cancelled audio data loading");
+            return null;
         } catch (Exception ex) {
             LOGGER.error("Failed to get audio data", ex);
             return null;
@@ -129,16 +255,86 @@ public class VoiceLoaderManager {
         if (voiceStream == null)
             return null;
 
-        var uuid = UUID.randomUUID();
-        var file = getTmpFolder(uuid);
+        VoiceStreamFile stream;
         try {
-            FNDataUtil.bufInputToOutput(voiceStream, new FileOutputStream(file));
+            stream = new VoiceStreamFile(getTmpFolder(UUID.randomUUID()));
+        } catch (IOException ex) {
+            LOGGER.error("Failed to create audio data cash", ex);
+            try {
+                voiceStream.close();
+            } catch (IOException ignored) {
+            }
+            return null;
+        }
+
+        CompletableFuture.runAsync(() -> transferVoiceStream(task, requestKey, voice, stream, voiceStream, cacheKey), transferExecutorService);
+        return stream;
+    }
+
+    private void transferVoiceStream(LoadTask task, RequestKey requestKey, TTSVoice voice, VoiceStreamFile stream, InputStream voiceStream, String cacheKey) {
+        try {
+            stream.transfer(voiceStream);
+            if (requestKey != null && voice.isCached()) {
+                var l = storeVoiceStream(voice, stream, cacheKey);
+                var cache = new VoiceCache(l, cacheKey != null);
+                task.setCache(cache);
+                synchronized (caches) {
+                    l.setAlready(true);
+                    caches.put(requestKey, cache);
+                }
+            }
         } catch (IOException ex) {
+            var file = stream.getFile();
             if (file.exists())
                 file.delete();
             LOGGER.error("Failed to write audio data cash", ex);
-            return null;
+        } finally {
+            if (requestKey != null) {
+                synchronized (tasks) {
+                    tasks.remove(requestKey, task);
+                }
+            }
+        }
+    }
+
+    private TmpFileVoiceTrackLoader storeVoiceStream(TTSVoice voice, VoiceStreamFile stream, String cacheKey) {
+        if (cacheKey != null) {
+            try {
+                synchronized (stream) {
+                    var file = VoiceDiskCache.getInstance().put(cacheKey, stream.getFile());
+                    stream.setFile(file);
+                    return new TmpFileVoiceTrackLoader(file, true);
+                }
+            } catch (IOException ex) {
+                LOGGER.error("Failed to store audio data to voice cache", ex);
+            }
+        }
+        return new TmpFileVoiceTrackLoader(stream.getFile(), voice.isCached());
+    }
+
+    private static record RequestKey(String voiceId, String parameters, String text) {
+    }
+
+    private static class LoadTask {
+        private final CompletableFuture<VoiceStreamFile> future = new CompletableFuture<>();
+        private final List<VoiceTrackLoader> loaders = new ArrayList<>();
+        private VoiceCache cache;
+        private int waiters;
+        private Thread thread;
+        private boolean cancelled;
+
+        private synchronized void addLoader(VoiceTrackLoader loader) {
+            if (cache != null) {
+                cache.addChild(loader);
+            } else {
+                loaders.add(loader);
+            }
+        }
+
+        private synchronized void setCache(VoiceCache cache) {
+            this.cache = cache;
+            loaders.forEach(cache::addChild);
+            loaders.clear();
         }
-        return new TmpFileVoiceTrackLoader(uuid, voice.isCached());
     }
 }
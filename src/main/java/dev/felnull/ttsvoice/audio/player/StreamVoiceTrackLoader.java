@@ -0,0 +1,47 @@
+package dev.felnull.ttsvoice.audio.player;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import dev.felnull.ttsvoice.audio.AudioScheduler;
+import dev.felnull.ttsvoice.audio.VoiceAudioPlayerManager;
+import dev.felnull.ttsvoice.audio.stream.VoiceStreamFile;
+
+import java.util.concurrent.CompletableFuture;
+
+public class StreamVoiceTrackLoader implements VoiceTrackLoader {
+    private final VoiceStreamFile stream;
+    private final boolean cached;
+    private boolean already;
+    private AudioScheduler audioScheduler;
+
+    public StreamVoiceTrackLoader(VoiceStreamFile stream, boolean cached) {
+        this.stream = stream;
+        this.cached = cached;
+    }
+
+    @Override
+    public CompletableFuture<AudioTrack> loaded() {
+        var vapm = VoiceAudioPlayerManager.getInstance();
+        return vapm.loadTrack(vapm.getVoiceStreamSourceManager().register(stream));
+    }
+
+    @Override
+    public void setAudioScheduler(AudioScheduler scheduler) {
+        this.audioScheduler = scheduler;
+    }
+
+    @Override
+    public void end() {
+        already = true;
+        if (!cached)
+            stream.delete();
+    }
+
+    @Override
+    public boolean isAlready() {
+        return already || (audioScheduler != null && audioScheduler.isDestroy());
+    }
+
+    public VoiceStreamFile getStream() {
+        return stream;
+    }
+}
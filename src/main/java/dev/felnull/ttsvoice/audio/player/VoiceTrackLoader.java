@@ -13,4 +13,8 @@ public interface VoiceTrackLoader {
 
     default void end() {
     }
+
+    default boolean isAlready() {
+        return true;
+    }
 }
@@ -0,0 +1,39 @@
+package dev.felnull.ttsvoice.audio.stream;
+
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerDescriptor;
+import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import com.sedmelluq.discord.lavaplayer.track.DelegatedAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.InternalAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
+
+public class VoiceStreamAudioTrack extends DelegatedAudioTrack {
+    private final VoiceStreamFile stream;
+    private final MediaContainerDescriptor containerTrackFactory;
+    private final VoiceStreamSourceManager sourceManager;
+
+    public VoiceStreamAudioTrack(AudioTrackInfo trackInfo, VoiceStreamFile stream, MediaContainerDescriptor containerTrackFactory, VoiceStreamSourceManager sourceManager) {
+        super(trackInfo);
+        this.stream = stream;
+        this.containerTrackFactory = containerTrackFactory;
+        this.sourceManager = sourceManager;
+    }
+
+    @Override
+    public void process(LocalAudioTrackExecutor executor) throws Exception {
+        try (var inputStream = stream.openInputStream()) {
+            processDelegate((InternalAudioTrack) containerTrackFactory.createTrack(trackInfo, inputStream), executor);
+        }
+    }
+
+    @Override
+    protected AudioTrack makeShallowClone() {
+        return new VoiceStreamAudioTrack(trackInfo, stream, containerTrackFactory, sourceManager);
+    }
+
+    @Override
+    public AudioSourceManager getSourceManager() {
+        return sourceManager;
+    }
+}
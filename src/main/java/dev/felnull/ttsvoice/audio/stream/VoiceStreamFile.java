@@ -0,0 +1,154 @@
+package dev.felnull.ttsvoice.audio.stream;
+
+import com.sedmelluq.discord.lavaplayer.tools.Units;
+import com.sedmelluq.discord.lavaplayer.tools.io.SeekableInputStream;
+import com.sedmelluq.discord.lavaplayer.track.info.AudioTrackInfoProvider;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class VoiceStreamFile {
+    private final UUID id = UUID.randomUUID();
+    private final OutputStream out;
+    private File file;
+    private long written;
+    private boolean finished;
+    private boolean deleted;
+    private IOException error;
+
+    public VoiceStreamFile(File file) throws IOException {
+        this.file = file;
+        this.out = new FileOutputStream(file);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public synchronized File getFile() {
+        return file;
+    }
+
+    public synchronized void setFile(File file) {
+        this.file = file;
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    public void transfer(InputStream stream) throws IOException {
+        try (InputStream in = stream; OutputStream o = out) {
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                o.write(buf, 0, len);
+                synchronized (this) {
+                    written += len;
+                    notifyAll();
+                }
+            }
+        } catch (IOException ex) {
+            synchronized (this) {
+                error = ex;
+                notifyAll();
+            }
+            throw ex;
+        }
+        synchronized (this) {
+            finished = true;
+            if (deleted)
+                file.delete();
+            notifyAll();
+        }
+    }
+
+    public synchronized void delete() {
+        deleted = true;
+        if ((finished || error != null) && file.exists())
+            file.delete();
+    }
+
+    public synchronized SeekableInputStream openInputStream() throws IOException {
+        return new Input(new RandomAccessFile(file, "r"), finished ? written : Units.CONTENT_LENGTH_UNKNOWN);
+    }
+
+    private synchronized long await(long position) throws IOException {
+        while (position >= written && !finished && error == null) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for voice data");
+            }
+        }
+        if (error != null)
+            throw new IOException("Voice data transfer failed", error);
+        return written;
+    }
+
+    private class Input extends SeekableInputStream {
+        private final RandomAccessFile file;
+        private long position;
+
+        private Input(RandomAccessFile file, long contentLength) {
+            super(contentLength, 0);
+            this.file = file;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            int len = read(b, 0, 1);
+            return len == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            long available = await(position) - position;
+            if (available <= 0)
+                return -1;
+            file.seek(position);
+            int read = file.read(b, off, (int) Math.min(len, available));
+            if (read > 0)
+                position += read;
+            return read;
+        }
+
+        @Override
+        public int available() {
+            synchronized (VoiceStreamFile.this) {
+                return (int) Math.max(0, Math.min(Integer.MAX_VALUE, written - position));
+            }
+        }
+
+        @Override
+        public long getPosition() {
+            return position;
+        }
+
+        @Override
+        protected void seekHard(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public boolean canSeekHard() {
+            return true;
+        }
+
+        @Override
+        public List<AudioTrackInfoProvider> getTrackInfoProviders() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package dev.felnull.ttsvoice.audio.stream;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerDescriptor;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerDetection;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerHints;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerRegistry;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.source.ProbingAudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class VoiceStreamSourceManager extends ProbingAudioSourceManager {
+    private static final String PREFIX = "voice-stream:";
+    private final Cache<String, VoiceStreamFile> streams = CacheBuilder.newBuilder().weakValues().build();
+
+    public VoiceStreamSourceManager() {
+        super(MediaContainerRegistry.DEFAULT_REGISTRY);
+    }
+
+    public String register(VoiceStreamFile stream) {
+        var id = stream.getId().toString();
+        streams.put(id, stream);
+        return PREFIX + id;
+    }
+
+    @Override
+    public String getSourceName() {
+        return "voice-stream";
+    }
+
+    @Override
+    public AudioItem loadItem(AudioPlayerManager manager, AudioReference reference) {
+        if (reference.identifier == null || !reference.identifier.startsWith(PREFIX))
+            return null;
+
+        var stream = streams.getIfPresent(reference.identifier.substring(PREFIX.length()));
+        if (stream == null)
+            return null;
+
+        try (var inputStream = stream.openInputStream()) {
+            return handleLoadResult(new MediaContainerDetection(containerRegistry, reference, inputStream, MediaContainerHints.from(null, null)).detectContainer());
+        } catch (IOException ex) {
+            throw new FriendlyException("Failed to open voice stream", FriendlyException.Severity.SUSPICIOUS, ex);
+        }
+    }
+
+    @Override
+    protected AudioTrack createTrack(AudioTrackInfo trackInfo, MediaContainerDescriptor containerTrackFactory) {
+        var stream = streams.getIfPresent(trackInfo.identifier.substring(PREFIX.length()));
+        if (stream == null)
+            throw new FriendlyException("Voice stream is no longer available", FriendlyException.Severity.COMMON, null);
+        return new VoiceStreamAudioTrack(trackInfo, stream, containerTrackFactory, this);
+    }
+
+    @Override
+    public boolean isTrackEncodable(AudioTrack track) {
+        return false;
+    }
+
+    @Override
+    public void encodeTrack(AudioTrack track, DataOutput output) throws IOException {
+    }
+
+    @Override
+    public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) throws IOException {
+        return null;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+}
@@ -0,0 +1,24 @@
+package dev.felnull.ttsvoice.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter implements Metrics.Meter {
+    private final LongAdder count = new LongAdder();
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void increment(long amount) {
+        count.add(amount);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+
+    @Override
+    public void write(StringBuilder sb, String name, String labels) {
+        Metrics.writeSample(sb, name, labels, count.sum());
+    }
+}
@@ -0,0 +1,52 @@
+package dev.felnull.ttsvoice.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Histogram implements Metrics.Meter {
+    private final double[] buckets;
+    private final LongAdder[] counts;
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(double[] buckets) {
+        this.buckets = buckets;
+        this.counts = new LongAdder[buckets.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void observe(double value) {
+        for (int i = 0; i < buckets.length; i++) {
+            if (value <= buckets[i]) {
+                counts[i].increment();
+                break;
+            }
+        }
+        count.increment();
+        sum.add(value);
+    }
+
+    public void observeMillis(long time) {
+        observe(time / 1000d);
+    }
+
+    public void observeNanos(long time) {
+        observe(time / 1000000000d);
+    }
+
+    @Override
+    public void write(StringBuilder sb, String name, String labels) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += counts[i].sum();
+            Metrics.writeSample(sb, name + "_bucket", prefix + "le=\"" + buckets[i] + "\"", cumulative);
+        }
+        long total = count.sum();
+        Metrics.writeSample(sb, name + "_bucket", prefix + "le=\"+Inf\"", total);
+        Metrics.writeSample(sb, name + "_sum", labels, sum.sum());
+        Metrics.writeSample(sb, name + "_count", labels, total);
+    }
+}
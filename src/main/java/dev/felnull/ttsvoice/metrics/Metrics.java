@@ -0,0 +1,100 @@
+package dev.felnull.ttsvoice.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+public class Metrics {
+    private static final double[] LATENCY_BUCKETS = {0.05d, 0.1d, 0.25d, 0.5d, 1d, 2.5d, 5d, 10d, 30d};
+    private static final Metrics INSTANCE = new Metrics();
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+        gauge("ttsbot_jvm_threads", "Number of live JVM threads", () -> Map.of("", ManagementFactory.getThreadMXBean().getThreadCount()));
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) getFamily(name, help, "counter").meters.computeIfAbsent(labels(labels), n -> new Counter());
+    }
+
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) getFamily(name, help, "histogram").meters.computeIfAbsent(labels(labels), n -> new Histogram(LATENCY_BUCKETS));
+    }
+
+    public void gauge(String name, String help, Supplier<Map<String, ? extends Number>> samples) {
+        getFamily(name, help, "gauge").gauges.add(samples);
+    }
+
+    private Family getFamily(String name, String help, String type) {
+        var family = families.computeIfAbsent(name, n -> new Family(help, type));
+        if (!family.type.equals(type))
+            throw new IllegalStateException("Metric " + name + " is already registered as " + family.type);
+        return family;
+    }
+
+    public String scrape() {
+        var sb = new StringBuilder();
+        families.forEach((name, family) -> {
+            sb.append("# HELP ").append(name).append(" ").append(family.help).append("\n");
+            sb.append("# TYPE ").append(name).append(" ").append(family.type).append("\n");
+            family.meters.forEach((labels, meter) -> meter.write(sb, name, labels));
+            for (Supplier<Map<String, ? extends Number>> gauge : family.gauges) {
+                gauge.get().forEach((labels, value) -> writeSample(sb, name, labels, value.doubleValue()));
+            }
+        });
+        return sb.toString();
+    }
+
+    public static String labels(String... labels) {
+        if (labels.length % 2 != 0)
+            throw new IllegalArgumentException("Labels must be key value pairs");
+
+        var sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0)
+                sb.append(",");
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append("\"");
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    static void writeSample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name);
+        if (!labels.isEmpty())
+            sb.append("{").append(labels).append("}");
+        sb.append(" ");
+        if (value == Math.rint(value) && !Double.isInfinite(value))
+            sb.append((long) value);
+        else
+            sb.append(value);
+        sb.append("\n");
+    }
+
+    interface Meter {
+        void write(StringBuilder sb, String name, String labels);
+    }
+
+    private static class Family {
+        private final Map<String, Meter> meters = new ConcurrentHashMap<>();
+        private final List<Supplier<Map<String, ? extends Number>>> gauges = new CopyOnWriteArrayList<>();
+        private final String help;
+        private final String type;
+
+        private Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
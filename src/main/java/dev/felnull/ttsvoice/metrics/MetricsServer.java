@@ -0,0 +1,50 @@
+package dev.felnull.ttsvoice.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.felnull.ttsvoice.tts.TraceRecorder;
+import dev.felnull.ttsvoice.util.ThreadUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+public class MetricsServer {
+    private static final Logger LOGGER = LogManager.getLogger(MetricsServer.class);
+
+    public static void start(String address, int port) throws IOException {
+        var server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        server.createContext("/metrics", exchange -> {
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                byte[] body = Metrics.getInstance().scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.createContext("/traces", exchange -> {
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                byte[] body = TraceRecorder.getInstance().dump().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(ThreadUtils.createExecutor("metrics-server-%d", 1));
+        server.start();
+        LOGGER.info("Started metrics server on " + address + ":" + port);
+    }
+}
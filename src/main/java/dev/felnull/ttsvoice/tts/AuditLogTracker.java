@@ -0,0 +1,106 @@
+package dev.felnull.ttsvoice.tts;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.audit.ActionType;
+import net.dv8tion.jda.api.audit.AuditLogEntry;
+import net.dv8tion.jda.api.entities.Guild;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class AuditLogTracker {
+    private static final Logger LOGGER = LogManager.getLogger(AuditLogTracker.class);
+    private static final AuditLogTracker INSTANCE = new AuditLogTracker();
+    private static final long WAIT_TIME = 2000;
+    private static final int FETCH_LIMIT = 10;
+    private static final int MAX_FETCH = 100;
+    private final Map<TrackKey, Snapshot> snapshots = new HashMap<>();
+
+    public static AuditLogTracker getInstance() {
+        return INSTANCE;
+    }
+
+    public void refresh(Guild guild) {
+        refresh(guild, ActionType.MEMBER_VOICE_KICK);
+        refresh(guild, ActionType.MEMBER_VOICE_MOVE);
+    }
+
+    public void refresh(Guild guild, ActionType type) {
+        fetch(guild, type);
+    }
+
+    public CompletableFuture<Boolean> wasChanged(Guild guild, ActionType type) {
+        return fetch(guild, type).completeOnTimeout(false, WAIT_TIME, TimeUnit.MILLISECONDS);
+    }
+
+    private CompletableFuture<Boolean> fetch(Guild guild, ActionType type) {
+        var ret = new CompletableFuture<Boolean>();
+        if (!guild.getSelfMember().hasPermission(Permission.VIEW_AUDIT_LOGS)) {
+            ret.complete(false);
+            return ret;
+        }
+
+        var key = new TrackKey(guild.getIdLong(), type);
+        Snapshot snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.get(key);
+        }
+
+        var action = guild.retrieveAuditLogs().type(type).limit(FETCH_LIMIT);
+        var entries = snapshot == null ? action.takeAsync(FETCH_LIMIT) : action.takeWhileAsync(MAX_FETCH, snapshot::isTracked);
+        entries.whenComplete((r, ex) -> {
+            if (ex != null) {
+                LOGGER.error("Failed to get audit logs", ex);
+                ret.complete(false);
+                return;
+            }
+            if (ret.complete(snapshot != null && snapshot.isChanged(r)))
+                update(key, r);
+        });
+        return ret;
+    }
+
+    private void update(TrackKey key, List<AuditLogEntry> entries) {
+        synchronized (snapshots) {
+            var previous = snapshots.get(key);
+            long lastId = previous == null ? 0 : previous.lastId();
+            Map<Long, Object> counts = new HashMap<>();
+            for (AuditLogEntry entry : entries.subList(0, Math.min(entries.size(), FETCH_LIMIT))) {
+                lastId = Math.max(lastId, entry.getIdLong());
+                counts.put(entry.getIdLong(), getCount(entry));
+            }
+            if (previous != null && counts.isEmpty())
+                return;
+            snapshots.put(key, new Snapshot(lastId, counts));
+        }
+    }
+
+    private static Object getCount(AuditLogEntry entry) {
+        return entry.getOptions().get("count");
+    }
+
+    public void clear(long guildId) {
+        synchronized (snapshots) {
+            snapshots.keySet().removeIf(n -> n.guildId() == guildId);
+        }
+    }
+
+    private static record TrackKey(long guildId, ActionType type) {
+    }
+
+    private static record Snapshot(long lastId, Map<Long, Object> counts) {
+        private boolean isTracked(AuditLogEntry entry) {
+            return entry.getIdLong() > lastId || counts.containsKey(entry.getIdLong());
+        }
+
+        private boolean isChanged(List<AuditLogEntry> entries) {
+            return entries.stream().anyMatch(n -> n.getIdLong() > lastId || !Objects.equals(counts.get(n.getIdLong()), getCount(n)));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package dev.felnull.ttsvoice.tts;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import dev.felnull.ttsvoice.Main;
+import dev.felnull.ttsvoice.util.DiscordUtils;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class MemberNameCache {
+    private static final MemberNameCache INSTANCE = new MemberNameCache();
+    private final Cache<MemberKey, String> names = CacheBuilder.newBuilder().maximumSize(10000).expireAfterWrite(10, TimeUnit.MINUTES).build();
+    private final Cache<MemberKey, Boolean> missing = CacheBuilder.newBuilder().maximumSize(10000).expireAfterWrite(5, TimeUnit.MINUTES).build();
+    private final Set<MemberKey> retrieving = new HashSet<>();
+
+    public static MemberNameCache getInstance() {
+        return INSTANCE;
+    }
+
+    public String getName(Guild guild, long userId) {
+        var name = getNickName(userId);
+        if (name != null)
+            return name;
+
+        var member = guild.getMemberById(userId);
+        if (member != null)
+            return getMemberName(member);
+
+        var key = new MemberKey(guild.getIdLong(), userId);
+        name = names.getIfPresent(key);
+        if (name != null)
+            return name;
+
+        retrieve(guild, key);
+        var user = guild.getJDA().getUserById(userId);
+        return user == null ? null : DiscordUtils.toNoMention(user.getName());
+    }
+
+    public String getName(Member member) {
+        var name = getNickName(member.getIdLong());
+        if (name != null)
+            return name;
+        return getMemberName(member);
+    }
+
+    public void update(Member member) {
+        var key = new MemberKey(member.getGuild().getIdLong(), member.getIdLong());
+        missing.invalidate(key);
+        names.put(key, getMemberName(member));
+    }
+
+    private String getNickName(long userId) {
+        return DiscordUtils.toNoMention(Main.SAVE_DATA.getUserNickName(userId));
+    }
+
+    private String getMemberName(Member member) {
+        var name = member.getNickname();
+        if (name == null)
+            name = member.getUser().getName();
+        return DiscordUtils.toNoMention(name);
+    }
+
+    private void retrieve(Guild guild, MemberKey key) {
+        if (missing.getIfPresent(key) != null)
+            return;
+        synchronized (retrieving) {
+            if (!retrieving.add(key))
+                return;
+        }
+        guild.retrieveMemberById(key.userId()).queue(member -> {
+            update(member);
+            synchronized (retrieving) {
+                retrieving.remove(key);
+            }
+        }, ex -> {
+            missing.put(key, true);
+            synchronized (retrieving) {
+                retrieving.remove(key);
+            }
+        });
+    }
+
+    public void invalidate(long guildId, long userId) {
+        names.invalidate(new MemberKey(guildId, userId));
+        missing.invalidate(new MemberKey(guildId, userId));
+    }
+
+    public void invalidateUser(long userId) {
+        names.asMap().keySet().removeIf(n -> n.userId() == userId);
+        missing.asMap().keySet().removeIf(n -> n.userId() == userId);
+    }
+
+    public void invalidateGuild(long guildId) {
+        names.asMap().keySet().removeIf(n -> n.guildId() == guildId);
+        missing.asMap().keySet().removeIf(n -> n.guildId() == guildId);
+    }
+
+    private static record MemberKey(long guildId, long userId) {
+    }
+}
@@ -6,6 +6,7 @@ import dev.felnull.ttsvoice.tts.sayvoice.VCEventSayVoice;
 import dev.felnull.ttsvoice.util.DiscordUtils;
 import dev.felnull.ttsvoice.voice.HasTitleAndID;
 import dev.felnull.ttsvoice.voice.VoiceType;
+import dev.felnull.ttsvoice.voice.VoiceTypeRegistry;
 import dev.felnull.ttsvoice.voice.reinoare.cookie.CookieEntry;
 import dev.felnull.ttsvoice.voice.reinoare.cookie.CookieManager;
 import dev.felnull.ttsvoice.voice.reinoare.inm.INMEntry;
@@ -14,10 +15,14 @@ import net.dv8tion.jda.api.MessageBuilder;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.audit.*;
 import net.dv8tion.jda.api.entities.*;
+import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.guild.member.update.GuildMemberUpdateNicknameEvent;
 import net.dv8tion.jda.api.events.guild.voice.*;
 import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.user.update.UserUpdateNameEvent;
 import net.dv8tion.jda.api.exceptions.InsufficientPermissionException;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
@@ -27,12 +32,10 @@ import net.dv8tion.jda.api.managers.AudioManager;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
-import java.util.stream.IntStream;
 
 public class TTSListener extends ListenerAdapter {
     private static final Random rand = new Random();
     private final int botNumber;
-    public static HashMap<Long, List<AuditLogEntry>> auditLogs = new HashMap<>();
 
     public TTSListener(int botNumber) {
         this.botNumber = botNumber;
@@ -130,7 +133,7 @@ public class TTSListener extends ListenerAdapter {
                         User user = uop == null ? e.getUser() : uop.getAsUser();
 
 /*                        if (user.isBot()) {
-                            e.reply(DiscordUtils.getName(botNumber, e.getGuild(), user, user.getIdLong()) + "はBOTです").queue();
+                            e.reply(DiscordUtils.getName(e.getGuild(), user, user.getIdLong()) + "はBOTです").queue();
                             return;
                         }*/
 
@@ -148,7 +151,7 @@ public class TTSListener extends ListenerAdapter {
                         }
 
                         TTSManager.getInstance().setUserVoceTypes(user.getIdLong(), type);
-                        e.reply(DiscordUtils.getName(botNumber, e.getGuild(), user, user.getIdLong()) + "の読み上げ音声タイプを[" + type.getTitle() + "]に変更しました").queue();
+                        e.reply(DiscordUtils.getName(e.getGuild(), user, user.getIdLong()) + "の読み上げ音声タイプを[" + type.getTitle() + "]に変更しました").queue();
                     }
                     case "check" -> {
                         var uop = e.getOption("user");
@@ -158,11 +161,11 @@ public class TTSListener extends ListenerAdapter {
                         }
                         User user = uop == null ? e.getUser() : uop.getAsUser();
                         if (user.isBot()) {
-                            e.reply(DiscordUtils.getName(botNumber, e.getGuild(), user, user.getIdLong()) + "はBOTです").queue();
+                            e.reply(DiscordUtils.getName(e.getGuild(), user, user.getIdLong()) + "はBOTです").queue();
                             return;
                         }
                         var type = TTSManager.getInstance().getUserVoiceType(user.getIdLong(), e.getGuild().getIdLong());
-                        e.reply(DiscordUtils.getName(botNumber, e.getGuild(), user, user.getIdLong()) + "の現在の読み上げタイプは[" + type.getTitle() + "]です").setEphemeral(true).queue();
+                        e.reply(DiscordUtils.getName(e.getGuild(), user, user.getIdLong()) + "の現在の読み上げタイプは[" + type.getTitle() + "]です").setEphemeral(true).queue();
                     }
                 }
             }
@@ -182,7 +185,7 @@ public class TTSListener extends ListenerAdapter {
                         var msg = new MessageBuilder().append("読み上げ拒否されたユーザ一覧\n");
                         StringBuilder sb = new StringBuilder();
                         for (Long deny : lst) {
-                            sb.append(DiscordUtils.getName(botNumber, e.getGuild(), Main.getJDA(botNumber).getUserById(deny), deny)).append("\n");
+                            sb.append(DiscordUtils.getName(e.getGuild(), Main.getJDA(botNumber).getUserById(deny), deny)).append("\n");
                         }
                         msg.appendCodeLine(sb.toString());
                         e.reply(msg.build()).setEphemeral(true).queue();
@@ -200,7 +203,7 @@ public class TTSListener extends ListenerAdapter {
                             return;
                         }
                         if (uop.getAsUser().isBot()) {
-                            e.reply(DiscordUtils.getName(botNumber, e.getGuild(), uop.getAsUser(), uop.getAsUser().getIdLong()) + "はBOTです").setEphemeral(true).queue();
+                            e.reply(DiscordUtils.getName(e.getGuild(), uop.getAsUser(), uop.getAsUser().getIdLong()) + "はBOTです").setEphemeral(true).queue();
                             return;
                         }
 
@@ -209,7 +212,7 @@ public class TTSListener extends ListenerAdapter {
                             return;
                         }
                         Main.SAVE_DATA.addDenyUser(e.getGuild().getIdLong(), uop.getAsUser().getIdLong());
-                        e.reply(DiscordUtils.getName(botNumber, e.getGuild(), uop.getAsUser(), uop.getAsUser().getIdLong()) + "の読み上げ拒否します").setEphemeral(true).queue();
+                        e.reply(DiscordUtils.getName(e.getGuild(), uop.getAsUser(), uop.getAsUser().getIdLong()) + "の読み上げ拒否します").setEphemeral(true).queue();
                     }
                     case "remove" -> {
                         if (!checkNeedAdmin(e.getMember(), e))
@@ -224,7 +227,7 @@ public class TTSListener extends ListenerAdapter {
                             return;
                         }
                         if (uop.getAsUser().isBot()) {
-                            e.reply(DiscordUtils.getName(botNumber, e.getGuild(), uop.getAsUser(), uop.getAsUser().getIdLong()) + "はBOTです").setEphemeral(true).queue();
+                            e.reply(DiscordUtils.getName(e.getGuild(), uop.getAsUser(), uop.getAsUser().getIdLong()) + "はBOTです").setEphemeral(true).queue();
                             return;
                         }
                         if (!Main.SAVE_DATA.isDenyUser(e.getGuild().getIdLong(), uop.getAsUser().getIdLong())) {
@@ -232,13 +235,13 @@ public class TTSListener extends ListenerAdapter {
                             return;
                         }
                         Main.SAVE_DATA.removeDenyUser(e.getGuild().getIdLong(), uop.getAsUser().getIdLong());
-                        e.reply(DiscordUtils.getName(botNumber, e.getGuild(), uop.getAsUser(), uop.getAsUser().getIdLong()) + "の読み上げ拒否を解除します").setEphemeral(true).queue();
+                        e.reply(DiscordUtils.getName(e.getGuild(), uop.getAsUser(), uop.getAsUser().getIdLong()) + "の読み上げ拒否を解除します").setEphemeral(true).queue();
                     }
                 }
             }
             case "inm" -> {
                 var op = e.getOption("search");
-                if (op != null && TTSManager.getInstance().getVoiceTypes(e.getUser().getIdLong(), e.getGuild().getIdLong()).contains(INMManager.getInstance().getVoice())) {
+                if (op != null && VoiceTypeRegistry.getInstance().isInmAllowed(e.getUser().getIdLong(), e.getGuild().getIdLong())) {
                     TTSManager.getInstance().sayText(new BotAndGuild(botNumber, e.getGuild().getIdLong()), INMManager.getInstance().getVoice(), op.getAsString());
                 }
                 e.deferReply().queue();
@@ -246,7 +249,7 @@ public class TTSListener extends ListenerAdapter {
             }
             case "cookie" -> {
                 var op = e.getOption("search");
-                if (op != null && TTSManager.getInstance().getVoiceTypes(e.getUser().getIdLong(), e.getGuild().getIdLong()).contains(CookieManager.getInstance().getVoice())) {
+                if (op != null && VoiceTypeRegistry.getInstance().isCookieAllowed(e.getUser().getIdLong(), e.getGuild().getIdLong())) {
                     TTSManager.getInstance().sayText(new BotAndGuild(botNumber, e.getGuild().getIdLong()), CookieManager.getInstance().getVoice(), op.getAsString());
                 }
                 e.deferReply().queue();
@@ -267,6 +270,7 @@ public class TTSListener extends ListenerAdapter {
 
                     sbr.append("VCに参加時のみ読み上げ").append(" ").append(sc.isNeedJoin() ? "有効" : "無効").append("\n");
                     sbr.append("読み上げの上書き").append(" ").append(sc.isOverwriteAloud() ? "有効" : "無効").append("\n");
+                    sbr.append("読み上げの間隔").append(" ").append(sc.getReadAroundInterval()).append("ミリ秒").append("\n");
                     if (!DiscordUtils.isNonAllowInm(e.getGuild().getIdLong()))
                         sbr.append("INMモード").append(" ").append(sc.isInmMode(e.getGuild().getIdLong()) ? "有効" : "無効").append("\n");
                     if (!DiscordUtils.isNonAllowCookie(e.getGuild().getIdLong()))
@@ -278,6 +282,8 @@ public class TTSListener extends ListenerAdapter {
                     var en = e.getOption("enable");
                     if (en == null)
                         en = e.getOption("max-count");
+                    if (en == null)
+                        en = e.getOption("interval");
                     if (en == null)
                         en = e.getOption("prefix");
                     if (en == null) {
@@ -343,7 +349,7 @@ public class TTSListener extends ListenerAdapter {
                                 }
                                 sc.setJoinSayName(ena);
                                 if (ena) {
-                                    updateAuditLogMap(e.getGuild());
+                                    AuditLogTracker.getInstance().refresh(e.getGuild());
                                 }
                                 e.reply("VCに参加時に名前を読み上げを" + enStr + "にしました").queue();
                             }
@@ -359,6 +365,14 @@ public class TTSListener extends ListenerAdapter {
                                 sc.setMaxReadAroundCharacterLimit(iv);
                                 e.reply("最大読み上げ文字数を" + iv + "にしました").queue();
                             }
+                            case "read-around-interval" -> {
+                                if (sc.getReadAroundInterval() == iv) {
+                                    e.reply("すでに読み上げの間隔は" + iv + "ミリ秒です").setEphemeral(true).queue();
+                                    return;
+                                }
+                                sc.setReadAroundInterval(iv);
+                                e.reply("読み上げの間隔を" + iv + "ミリ秒にしました").queue();
+                            }
                         }
                     } else if (en.getType() == OptionType.STRING) {
                         String pre = en.getAsString();
@@ -383,7 +397,7 @@ public class TTSListener extends ListenerAdapter {
                 }
                 User user = uop == null ? e.getUser() : uop.getAsUser();
                 if (user.isBot()) {
-                    e.reply(DiscordUtils.getName(botNumber, e.getGuild(), user, user.getIdLong()) + "はBOTです").queue();
+                    e.reply(DiscordUtils.getName(e.getGuild(), user, user.getIdLong()) + "はBOTです").queue();
                     return;
                 }
 
@@ -392,10 +406,10 @@ public class TTSListener extends ListenerAdapter {
                     var name = nm.getAsString();
                     if ("reset".equals(name)) {
                         Main.SAVE_DATA.removeUserNickName(user.getIdLong());
-                        e.reply(DiscordUtils.getName(botNumber, e.getGuild(), user, user.getIdLong()) + "のニックネームをリセットしました").queue();
+                        e.reply(DiscordUtils.getName(e.getGuild(), user, user.getIdLong()) + "のニックネームをリセットしました").queue();
                     } else {
                         Main.SAVE_DATA.setUserNickName(user.getIdLong(), name);
-                        e.reply(DiscordUtils.getName(botNumber, e.getGuild(), user, user.getIdLong()) + "のニックネームを変更しました").queue();
+                        e.reply(DiscordUtils.getName(e.getGuild(), user, user.getIdLong()) + "のニックネームを変更しました").queue();
                     }
                 }
 
@@ -435,7 +449,7 @@ public class TTSListener extends ListenerAdapter {
         } else if ("inm".equals(e.getName())) {
             var op = e.getInteraction().getOption("search");
             var entries = new ArrayList<INMEntry>();
-            if (op != null && TTSManager.getInstance().getVoiceTypes(e.getUser().getIdLong(), e.getGuild().getIdLong()).contains(INMManager.getInstance().getVoice())) {
+            if (op != null && VoiceTypeRegistry.getInstance().isInmAllowed(e.getUser().getIdLong(), e.getGuild().getIdLong())) {
                 var im = INMManager.getInstance();
                 try {
                     var scr = im.search(op.getAsString(), 25);
@@ -449,7 +463,7 @@ public class TTSListener extends ListenerAdapter {
         } else if ("cookie".equals(e.getName())) {
             var op = e.getInteraction().getOption("search");
             var entries = new ArrayList<CookieEntry>();
-            if (op != null && TTSManager.getInstance().getVoiceTypes(e.getUser().getIdLong(), e.getGuild().getIdLong()).contains(CookieManager.getInstance().getVoice())) {
+            if (op != null && VoiceTypeRegistry.getInstance().isCookieAllowed(e.getUser().getIdLong(), e.getGuild().getIdLong())) {
                 var im = CookieManager.getInstance();
                 try {
                     var scr = im.search(op.getAsString(), 25);
@@ -488,30 +502,36 @@ public class TTSListener extends ListenerAdapter {
 
     @Override
     public void onGuildVoiceJoin(@NotNull GuildVoiceJoinEvent event) {
+        var trace = UtteranceTrace.start();
         if (!Main.getServerConfig(event.getGuild().getIdLong()).isJoinSayName()) return;
         var vc = event.getGuild().getAudioManager().getConnectedChannel();
         if (vc == null) return;
 
         if (vc == event.getChannelJoined())
-            tmSayText(event, VCEventSayVoice.EventType.JOIN);
+            tmSayText(event, VCEventSayVoice.EventType.JOIN, trace);
     }
 
     @Override
     public void onGuildVoiceLeave(@NotNull GuildVoiceLeaveEvent event) {
+        var trace = UtteranceTrace.start();
         if (!Main.getServerConfig(event.getGuild().getIdLong()).isJoinSayName()) return;
         var vc = event.getGuild().getAudioManager().getConnectedChannel();
         if (vc == null) return;
 
+        var alt = AuditLogTracker.getInstance();
         if (vc == event.getChannelLeft()) {
-            boolean wasKicked = wasAuditLogChanged(event.getGuild(), ActionType.MEMBER_VOICE_KICK);
-            if (wasKicked) tmSayText(event, VCEventSayVoice.EventType.FORCE_LEAVE);
-            else tmSayText(event, VCEventSayVoice.EventType.LEAVE);
+            alt.wasChanged(event.getGuild(), ActionType.MEMBER_VOICE_KICK).thenAccept(wasKicked -> {
+                if (wasKicked) tmSayText(event, VCEventSayVoice.EventType.FORCE_LEAVE, trace);
+                else tmSayText(event, VCEventSayVoice.EventType.LEAVE, trace);
+            });
+        } else {
+            alt.refresh(event.getGuild(), ActionType.MEMBER_VOICE_KICK);
         }
-        updateAuditLogMap(event.getGuild());
     }
 
     @Override
     public void onGuildVoiceMove(@NotNull GuildVoiceMoveEvent event) {
+        var trace = UtteranceTrace.start();
         if (!Main.getServerConfig(event.getGuild().getIdLong()).isJoinSayName()) return;
         var vc = event.getGuild().getAudioManager().getConnectedChannel();
         if (vc == null) return;
@@ -519,56 +539,46 @@ public class TTSListener extends ListenerAdapter {
         if (event.getMember().getUser().isBot() && Main.getJDAByID(event.getMember().getIdLong()) != null)
             TTSManager.getInstance().reconnect(BotAndGuild.ofId(event.getMember().getIdLong(), event.getGuild().getIdLong()), event.getChannelJoined().getIdLong());
 
+        var alt = AuditLogTracker.getInstance();
         if (vc == event.getChannelJoined() || vc == event.getChannelLeft()) {
-            boolean wasMoved = wasAuditLogChanged(event.getGuild(), ActionType.MEMBER_VOICE_MOVE);
-            if (vc == event.getChannelLeft()) {
-                if (wasMoved) tmSayText(event, VCEventSayVoice.EventType.FORCE_MOVE_TO);
-                else tmSayText(event, VCEventSayVoice.EventType.MOVE_TO);
-            } else if (vc == event.getChannelJoined()) {
-                if (wasMoved) tmSayText(event, VCEventSayVoice.EventType.FORCE_MOVE_FROM);
-                else tmSayText(event, VCEventSayVoice.EventType.MOVE_FROM);
-            }
+            alt.wasChanged(event.getGuild(), ActionType.MEMBER_VOICE_MOVE).thenAccept(wasMoved -> {
+                if (vc == event.getChannelLeft()) {
+                    if (wasMoved) tmSayText(event, VCEventSayVoice.EventType.FORCE_MOVE_TO, trace);
+                    else tmSayText(event, VCEventSayVoice.EventType.MOVE_TO, trace);
+                } else if (vc == event.getChannelJoined()) {
+                    if (wasMoved) tmSayText(event, VCEventSayVoice.EventType.FORCE_MOVE_FROM, trace);
+                    else tmSayText(event, VCEventSayVoice.EventType.MOVE_FROM, trace);
+                }
+            });
+        } else {
+            alt.refresh(event.getGuild(), ActionType.MEMBER_VOICE_MOVE);
         }
-        updateAuditLogMap(event.getGuild());
-    }
-
-    public static boolean wasAuditLogChanged(Guild guild, ActionType type) {
-        var logNew = getCurrentAuditLogEntries(guild, type);
-        var logOld = getPreviousAuditLogEntries(guild, type);
-        return !isEqualAuditLog(logNew, logOld);
     }
 
-    public static List<AuditLogEntry> getCurrentAuditLogEntries(Guild guild, ActionType type) {
-        return guild.retrieveAuditLogs().stream().filter(l -> l.getType() == type).toList();
+    @Override
+    public void onGuildMemberUpdateNickname(@NotNull GuildMemberUpdateNicknameEvent event) {
+        MemberNameCache.getInstance().update(event.getMember());
     }
 
-    public static List<AuditLogEntry> getPreviousAuditLogEntries(Guild guild, ActionType type) {
-        return auditLogs.get(guild.getIdLong()).stream().filter(l -> l.getType() == type).toList();
+    @Override
+    public void onUserUpdateName(@NotNull UserUpdateNameEvent event) {
+        MemberNameCache.getInstance().invalidateUser(event.getUser().getIdLong());
     }
 
-    public static boolean isEqualAuditLog(List<AuditLogEntry> log1, List<AuditLogEntry> log2) {
-        var largerLog = new ArrayList<>(log1.size() > log2.size() ? log1 : log2);
-        var smallerLog = new ArrayList<>(log1.size() < log2.size() ? log1 : log2);
-        IntStream.range(smallerLog.size(), largerLog.size()).forEach(i -> largerLog.remove(smallerLog.size()));
-
-        if (!largerLog.equals(smallerLog))
-            return false;
-        for (int i = 0; i < largerLog.size(); i++) {
-            var a = largerLog.get(i).getOptions();
-            for (String key : a.keySet()) {
-                if (!largerLog.get(i).getOptionByName(key).equals(smallerLog.get(i).getOptionByName(key)))
-                    return false;
-            }
-        }
-        return true;
+    @Override
+    public void onGuildMemberRemove(@NotNull GuildMemberRemoveEvent event) {
+        MemberNameCache.getInstance().invalidate(event.getGuild().getIdLong(), event.getUser().getIdLong());
     }
 
-    public void tmSayText(GuildVoiceUpdateEvent event, VCEventSayVoice.EventType type) {
-        TTSManager.getInstance().sayText(new BotAndGuild(botNumber, event.getGuild().getIdLong()), event.getMember().getIdLong(), new VCEventSayVoice(type, FNPair.of(event.getGuild(), botNumber), event.getMember().getUser(), event));
+    @Override
+    public void onGuildLeave(@NotNull GuildLeaveEvent event) {
+        MemberNameCache.getInstance().invalidateGuild(event.getGuild().getIdLong());
+        AuditLogTracker.getInstance().clear(event.getGuild().getIdLong());
     }
 
-    public static void updateAuditLogMap(Guild guild) {
-        auditLogs.put(guild.getIdLong(), guild.retrieveAuditLogs().complete());
+    public void tmSayText(GuildVoiceUpdateEvent event, VCEventSayVoice.EventType type, UtteranceTrace trace) {
+        trace.mark(UtteranceTrace.Stage.PREPROCESSED);
+        TTSManager.getInstance().sayText(new BotAndGuild(botNumber, event.getGuild().getIdLong()), event.getMember().getIdLong(), new VCEventSayVoice(type, FNPair.of(event.getGuild(), botNumber), event.getMember().getUser(), event), trace);
     }
 
     private boolean checkNeedAdmin(Member member, IReplyCallback callback) {
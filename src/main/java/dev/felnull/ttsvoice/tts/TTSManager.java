@@ -4,37 +4,43 @@ import com.google.common.collect.ImmutableList;
 import dev.felnull.ttsvoice.Main;
 import dev.felnull.ttsvoice.ServerConfig;
 import dev.felnull.ttsvoice.audio.VoiceAudioPlayerManager;
+import dev.felnull.ttsvoice.metrics.Metrics;
 import dev.felnull.ttsvoice.tts.sayvoice.ISayVoice;
 import dev.felnull.ttsvoice.tts.sayvoice.LiteralSayVoice;
 import dev.felnull.ttsvoice.util.DiscordUtils;
+import dev.felnull.ttsvoice.util.TextUtils;
 import dev.felnull.ttsvoice.util.URLUtils;
 import dev.felnull.ttsvoice.voice.VoiceCategory;
 import dev.felnull.ttsvoice.voice.VoiceType;
+import dev.felnull.ttsvoice.voice.VoiceTypeRegistry;
 import dev.felnull.ttsvoice.voice.googletranslate.GoogleTranslateVoiceCategory;
 import dev.felnull.ttsvoice.voice.reinoare.ReinoareVoiceCategory;
-import dev.felnull.ttsvoice.voice.reinoare.cookie.CookieManager;
-import dev.felnull.ttsvoice.voice.googletranslate.GoogleTranslateTTSType;
-import dev.felnull.ttsvoice.voice.reinoare.inm.INMManager;
 import dev.felnull.ttsvoice.voice.voicetext.VTVoiceCategory;
-import dev.felnull.ttsvoice.voice.voicetext.VTVoiceTypes;
 import dev.felnull.ttsvoice.voice.vvengine.coeiroink.CIVoiceCategory;
-import dev.felnull.ttsvoice.voice.vvengine.coeiroink.CoeiroInkManager;
 import dev.felnull.ttsvoice.voice.vvengine.voicevox.VVVoiceCategory;
-import dev.felnull.ttsvoice.voice.vvengine.voicevox.VoiceVoxManager;
 import net.dv8tion.jda.api.entities.Guild;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class TTSManager {
     private static final Logger LOGGER = LogManager.getLogger(TTSManager.class);
     private static final TTSManager INSTANCE = new TTSManager();
+    private static final int MIN_CHUNK_LENGTH = 10;
     private final Map<BotAndGuild, Long> TTS_CHANEL = new HashMap<>();
-    private final Map<BotAndGuild, LinkedList<TTSVoiceEntry>> TTS_QUEUE = new HashMap<>();
+    private final Map<BotAndGuild, TTSQueue> TTS_QUEUE = new ConcurrentHashMap<>();
     private Pattern ignorePattern;
 
+    private TTSManager() {
+        Metrics.getInstance().gauge("ttsbot_queue_depth", "Number of utterances waiting in the queue", () -> TTS_QUEUE.entrySet().stream()
+                .collect(Collectors.toMap(n -> Metrics.labels("bot", String.valueOf(n.getKey().botNumber()), "guild", String.valueOf(n.getKey().guildId())), n -> n.getValue().size())));
+    }
+
     public static TTSManager getInstance() {
         return INSTANCE;
     }
@@ -58,7 +64,7 @@ public class TTSManager {
 
     public void connect(BotAndGuild bag, long ttsChanelId, long audioChannel) {
         if (Main.getServerConfig(bag.getGuild().getIdLong()).isJoinSayName())
-            TTSListener.updateAuditLogMap(bag.getGuild());
+            AuditLogTracker.getInstance().refresh(bag.getGuild());
 
         setTTSChanel(bag, ttsChanelId);
         Main.getServerConfig(bag.guildId()).setLastJoinChannel(bag.getBotUserId(), new ServerConfig.TTSEntry(audioChannel, ttsChanelId));
@@ -81,10 +87,12 @@ public class TTSManager {
         return cv.getIdLong();
     }
 
-    public LinkedList<TTSVoiceEntry> getTTSQueue(BotAndGuild bag) {
-        synchronized (TTS_QUEUE) {
-            return TTS_QUEUE.computeIfAbsent(bag, n -> new LinkedList<>());
-        }
+    public TTSQueue getTTSQueue(BotAndGuild bag) {
+        return TTS_QUEUE.computeIfAbsent(bag, n -> new TTSQueue(n.guildId(), entry -> {
+            var sc = VoiceAudioPlayerManager.getInstance().getSchedulerIfPresent(n);
+            if (sc != null)
+                sc.cancelPrevisionLoad(entry);
+        }));
     }
 
     public void setTTSChanel(BotAndGuild bag, long chanelId) {
@@ -97,9 +105,7 @@ public class TTSManager {
         synchronized (TTS_CHANEL) {
             TTS_CHANEL.remove(bag);
         }
-        synchronized (TTS_QUEUE) {
-            TTS_QUEUE.remove(bag);
-        }
+        TTS_QUEUE.remove(bag);
     }
 
     public VoiceType getUserVoiceType(long userId, long guildId) {
@@ -109,7 +115,7 @@ public class TTSManager {
     }
 
     public VoiceType getVoiceTypeById(String id, long userId, long guildId) {
-        return getVoiceTypes(userId, guildId).stream().filter(n -> n.getId().equals(id)).findFirst().orElse(null);
+        return VoiceTypeRegistry.getInstance().getVoiceTypeById(id, userId, guildId);
     }
 
     public void setUserVoceTypes(long userId, VoiceType type) {
@@ -117,24 +123,7 @@ public class TTSManager {
     }
 
     public List<VoiceType> getVoiceTypes(long userId, long guildId) {
-        ImmutableList.Builder<VoiceType> builder = new ImmutableList.Builder<>();
-        builder.addAll(VoiceVoxManager.getInstance().getSpeakers());
-        builder.addAll(CoeiroInkManager.getInstance().getSpeakers());
-        builder.add(VTVoiceTypes.values());
-        builder.add(GoogleTranslateTTSType.values());
-
-        boolean flg1 = Main.getServerConfig(guildId).isInmMode(guildId);
-        boolean flg2 = !Main.CONFIG.inmDenyUser().contains(userId);
-
-        if (flg1 && flg2 && !DiscordUtils.isNonAllowInm(guildId)) builder.add(INMManager.getInstance().getVoice());
-
-        boolean flg3 = Main.getServerConfig(guildId).isCookieMode(guildId);
-        boolean flg4 = !Main.CONFIG.cookieDenyUser().contains(userId);
-
-        if (flg3 && flg4 && !DiscordUtils.isNonAllowCookie(guildId))
-            builder.add(CookieManager.getInstance().getVoice());
-
-        return builder.build();
+        return VoiceTypeRegistry.getInstance().getVoiceTypes(userId, guildId);
     }
 
     public List<VoiceCategory> getVoiceCategories(long userId, long guildId) {
@@ -144,12 +133,8 @@ public class TTSManager {
                 .add(VTVoiceCategory.getInstance())
                 .add(GoogleTranslateVoiceCategory.getInstance());
 
-        var flg1 = Main.getServerConfig(guildId).isInmMode(guildId);
-        var flg2 = !Main.CONFIG.inmDenyUser().contains(userId);
-        var flg3 = Main.getServerConfig(guildId).isCookieMode(guildId);
-        var flg4 = !Main.CONFIG.cookieDenyUser().contains(userId);
-
-        if (flg1 && flg2 && !DiscordUtils.isNonAllowInm(guildId) || flg3 && flg4 && !DiscordUtils.isNonAllowCookie(guildId)) {
+        var vtr = VoiceTypeRegistry.getInstance();
+        if (vtr.isInmAllowed(userId, guildId) || vtr.isCookieAllowed(userId, guildId)) {
             builder.add(ReinoareVoiceCategory.getInstance());
         }
 
@@ -157,23 +142,34 @@ public class TTSManager {
     }
 
     public void sayChat(BotAndGuild bag, long userId, String text) {
+        var trace = UtteranceTrace.start();
         if (ignorePattern == null) ignorePattern = Pattern.compile(Main.CONFIG.ignoreRegex());
 
         if (ignorePattern.matcher(text).matches()) return;
 
+        var vt = getUserVoiceType(userId, bag.guildId());
+        text = toChatText(text, n -> DiscordUtils.replaceMentionToText(bag.getGuild(), n), vt.getMaxTextLength(bag.guildId()));
+
+        List<ISayVoice> sayVoices;
+        if (vt.isChunkable()) {
+            sayVoices = TextUtils.splitSentences(text, MIN_CHUNK_LENGTH).stream().<ISayVoice>map(LiteralSayVoice::new).toList();
+        } else {
+            sayVoices = List.of(new LiteralSayVoice(text));
+        }
+        trace.mark(UtteranceTrace.Stage.PREPROCESSED);
+        sayText(bag, vt, sayVoices, trace);
+    }
+
+    public static String toChatText(String text, UnaryOperator<String> mentionReplacer, int max) {
         text = DiscordUtils.toCodeBlockSyoryaku(text);
-        text = DiscordUtils.replaceMentionToText(bag.botNumber(), bag.getGuild(), text);
+        text = mentionReplacer.apply(text);
         text = URLUtils.replaceURLToText(text);
 
         int pl = text.length();
-        var vt = getUserVoiceType(userId, bag.guildId());
-
-        int max = vt.getMaxTextLength(bag.guildId());
         if (text.length() >= max) text = text.substring(0, max);
 
         if (pl - text.length() > 0) text += "、以下" + (pl - text.length()) + "文字を省略";
-
-        sayText(bag, vt, text);
+        return text;
     }
 
     public void sayText(BotAndGuild bag, VoiceType voiceType, String text) {
@@ -188,7 +184,21 @@ public class TTSManager {
         sayText(bag, getUserVoiceType(userId, bag.guildId()), sayVoice);
     }
 
+    public void sayText(BotAndGuild bag, long userId, ISayVoice sayVoice, UtteranceTrace trace) {
+        sayText(bag, getUserVoiceType(userId, bag.guildId()), List.of(sayVoice), trace);
+    }
+
     public void sayText(BotAndGuild bag, VoiceType voiceType, ISayVoice sayVoice) {
+        sayText(bag, voiceType, List.of(sayVoice));
+    }
+
+    public void sayText(BotAndGuild bag, VoiceType voiceType, List<ISayVoice> sayVoices) {
+        sayText(bag, voiceType, sayVoices, UtteranceTrace.start());
+    }
+
+    public void sayText(BotAndGuild bag, VoiceType voiceType, List<ISayVoice> sayVoices, UtteranceTrace trace) {
+        if (sayVoices.isEmpty()) return;
+
         var sc = VoiceAudioPlayerManager.getInstance().getScheduler(bag);
         var q = getTTSQueue(bag);
         if (Main.getServerConfig(bag.guildId()).isOverwriteAloud()) {
@@ -196,7 +206,14 @@ public class TTSManager {
             sc.stop();
         }
 
-        q.add(new TTSVoiceEntry(new TTSVoice(sayVoice, voiceType), UUID.randomUUID()));
+        List<TTSVoiceEntry> entries = new ArrayList<>();
+        for (int i = 0; i < sayVoices.size(); i++) {
+            entries.add(new TTSVoiceEntry(new TTSVoice(sayVoices.get(i), voiceType), UUID.randomUUID(), i > 0, trace.copy()));
+        }
+        if (!q.offer(entries)) {
+            LOGGER.debug("Rejected a message of " + entries.size() + " chunks, queue is full: " + bag.guildId());
+            return;
+        }
         if (!sc.isLoadingOrPlaying()) sc.next();
     }
 
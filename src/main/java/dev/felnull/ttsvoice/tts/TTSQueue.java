@@ -0,0 +1,157 @@
+package dev.felnull.ttsvoice.tts;
+
+import dev.felnull.ttsvoice.Main;
+import dev.felnull.ttsvoice.tts.sayvoice.LiteralSayVoice;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class TTSQueue {
+    private final Deque<TTSVoiceEntry> entries = new ArrayDeque<>();
+    private final long guildId;
+    private final Consumer<TTSVoiceEntry> removeListener;
+
+    public TTSQueue(long guildId, Consumer<TTSVoiceEntry> removeListener) {
+        this.guildId = guildId;
+        this.removeListener = removeListener;
+    }
+
+    public boolean offer(List<TTSVoiceEntry> message) {
+        if (message.isEmpty())
+            return true;
+
+        List<TTSVoiceEntry> removed = new ArrayList<>();
+        boolean ret;
+        synchronized (entries) {
+            ret = offer(message, removed);
+        }
+        removed.forEach(removeListener);
+        return ret;
+    }
+
+    private boolean offer(List<TTSVoiceEntry> message, List<TTSVoiceEntry> removed) {
+        int capacity = Main.CONFIG.queueCapacity();
+        if (entries.size() + message.size() > capacity) {
+            switch (Main.CONFIG.queuePolicy()) {
+                case REJECT -> {
+                    return false;
+                }
+                case DROP_OLDEST -> {
+                    if (message.size() > capacity)
+                        return false;
+                    while (entries.size() + message.size() > capacity) {
+                        dropOldestMessage(removed);
+                    }
+                }
+                case MERGE -> {
+                    return merge(message, removed);
+                }
+            }
+        }
+
+        for (TTSVoiceEntry entry : message) {
+            entry.trace().mark(UtteranceTrace.Stage.ENQUEUED);
+            entries.offerLast(entry);
+        }
+        return true;
+    }
+
+    private void dropOldestMessage(List<TTSVoiceEntry> removed) {
+        var entry = entries.pollFirst();
+        if (entry == null)
+            return;
+        removed.add(entry);
+
+        TTSVoiceEntry next;
+        while ((next = entries.peekFirst()) != null && next.continued()) {
+            removed.add(entries.pollFirst());
+        }
+    }
+
+    private boolean merge(List<TTSVoiceEntry> message, List<TTSVoiceEntry> removed) {
+        var sb = new StringBuilder();
+        for (TTSVoiceEntry entry : message) {
+            if (!(entry.voice().sayVoice() instanceof LiteralSayVoice text) || !entry.voice().voiceType().equals(message.get(0).voice().voiceType()))
+                return false;
+            sb.append(text.text());
+        }
+
+        var last = entries.peekLast();
+        if (last == null || !(last.voice().sayVoice() instanceof LiteralSayVoice lastText) || !last.voice().voiceType().equals(message.get(0).voice().voiceType()))
+            return false;
+
+        var voiceType = last.voice().voiceType();
+        var text = lastText.text() + "、" + sb;
+        int max = voiceType.getMaxTextLength(guildId);
+        if (text.length() > max)
+            text = text.substring(0, max);
+
+        entries.pollLast();
+        removed.add(last);
+        entries.offerLast(new TTSVoiceEntry(new TTSVoice(new LiteralSayVoice(text), voiceType), last.uuid(), last.continued(), last.trace()));
+        return true;
+    }
+
+    public TTSVoiceEntry poll() {
+        synchronized (entries) {
+            return entries.pollFirst();
+        }
+    }
+
+    public TTSVoiceEntry peek() {
+        synchronized (entries) {
+            return entries.peekFirst();
+        }
+    }
+
+    public void clear() {
+        List<TTSVoiceEntry> removed = new ArrayList<>();
+        synchronized (entries) {
+            TTSVoiceEntry entry;
+            while ((entry = entries.pollFirst()) != null) {
+                removed.add(entry);
+            }
+        }
+        removed.forEach(removeListener);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public Stream<TTSVoiceEntry> stream() {
+        synchronized (entries) {
+            return new ArrayList<>(entries).stream();
+        }
+    }
+
+    public enum Policy {
+        DROP_OLDEST("drop_oldest"),
+        MERGE("merge"),
+        REJECT("reject");
+
+        private final String name;
+
+        Policy(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Policy byName(String name) {
+            for (Policy policy : values()) {
+                if (policy.name.equalsIgnoreCase(name))
+                    return policy;
+            }
+            return null;
+        }
+    }
+}
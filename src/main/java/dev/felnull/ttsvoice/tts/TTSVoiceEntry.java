@@ -2,5 +2,5 @@ package dev.felnull.ttsvoice.tts;
 
 import java.util.UUID;
 
-public record TTSVoiceEntry(TTSVoice voice, UUID uuid) {
+public record TTSVoiceEntry(TTSVoice voice, UUID uuid, boolean continued, UtteranceTrace trace) {
 }
@@ -0,0 +1,79 @@
+package dev.felnull.ttsvoice.tts;
+
+import dev.felnull.ttsvoice.Main;
+import dev.felnull.ttsvoice.metrics.Metrics;
+import dev.felnull.ttsvoice.tts.UtteranceTrace.Stage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+
+public class TraceRecorder {
+    private static final Logger LOGGER = LogManager.getLogger(TraceRecorder.class);
+    private static final TraceRecorder INSTANCE = new TraceRecorder();
+    private static final int MAX_SLOW_TRACES = 50;
+    private static final Span[] SPANS = {
+            new Span("preprocess", Stage.RECEIVED, Stage.PREPROCESSED, Scope.FIRST),
+            new Span("enqueue", Stage.PREPROCESSED, Stage.ENQUEUED, Scope.FIRST),
+            new Span("queue_wait", Stage.ENQUEUED, Stage.DEQUEUED, Scope.FIRST),
+            new Span("synthesis", Stage.SYNTHESIS_START, Stage.SYNTHESIS_END, Scope.ALL),
+            new Span("track_load", Stage.SYNTHESIS_END, Stage.TRACK_LOADED, Scope.ALL),
+            new Span("ready_wait", Stage.TRACK_LOADED, Stage.PLAY, Scope.ALL),
+            new Span("playback", Stage.PLAY, Stage.END, Scope.ALL),
+            new Span("total", Stage.RECEIVED, Stage.PLAY, Scope.FIRST),
+            new Span("continued_total", Stage.DEQUEUED, Stage.PLAY, Scope.CONTINUED)
+    };
+    private final Deque<String> slowTraces = new ArrayDeque<>();
+
+    public static TraceRecorder getInstance() {
+        return INSTANCE;
+    }
+
+    public void record(BotAndGuild bag, TTSVoiceEntry entry) {
+        var trace = entry.trace();
+        var engine = entry.voice().voiceType().getEngineName();
+        for (Span span : SPANS) {
+            if (!span.scope().isTarget(entry))
+                continue;
+            long time = trace.getElapsed(span.from(), span.to());
+            if (time >= 0)
+                Metrics.getInstance().histogram("ttsbot_utterance_stage_seconds", "Time spent in each stage of an utterance", "stage", span.name(), "engine", engine).observeNanos(time);
+        }
+
+        long threshold = Main.CONFIG.slowTraceThreshold();
+        long total = entry.continued() ? trace.getElapsed(Stage.DEQUEUED, Stage.PLAY) : trace.getElapsed(Stage.RECEIVED, Stage.PLAY);
+        if (threshold <= 0 || total < threshold * 1000000L)
+            return;
+
+        var text = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " guild=" + bag.guildId() + " voice=" + entry.voice().voiceType().getId() + " continued=" + entry.continued() + " " + trace;
+        LOGGER.warn("Slow utterance: " + text);
+        synchronized (slowTraces) {
+            slowTraces.addLast(text);
+            while (slowTraces.size() > MAX_SLOW_TRACES) {
+                slowTraces.removeFirst();
+            }
+        }
+    }
+
+    public String dump() {
+        synchronized (slowTraces) {
+            return String.join("\n", slowTraces) + "\n";
+        }
+    }
+
+    private static record Span(String name, Stage from, Stage to, Scope scope) {
+    }
+
+    private enum Scope {
+        ALL,
+        FIRST,
+        CONTINUED;
+
+        private boolean isTarget(TTSVoiceEntry entry) {
+            return this == ALL || (this == CONTINUED) == entry.continued();
+        }
+    }
+}
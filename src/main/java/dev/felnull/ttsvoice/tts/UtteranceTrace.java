@@ -0,0 +1,73 @@
+package dev.felnull.ttsvoice.tts;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class UtteranceTrace {
+    private final long[] times;
+
+    private UtteranceTrace(long[] times) {
+        this.times = times;
+    }
+
+    public static UtteranceTrace start() {
+        var trace = new UtteranceTrace(new long[Stage.values().length]);
+        trace.mark(Stage.RECEIVED);
+        return trace;
+    }
+
+    public synchronized void mark(Stage stage) {
+        if (times[stage.ordinal()] == 0)
+            times[stage.ordinal()] = System.nanoTime();
+    }
+
+    public synchronized long getTime(Stage stage) {
+        return times[stage.ordinal()];
+    }
+
+    public synchronized long getElapsed(Stage from, Stage to) {
+        long f = times[from.ordinal()];
+        long t = times[to.ordinal()];
+        if (f == 0 || t == 0 || t < f)
+            return -1;
+        return t - f;
+    }
+
+    public synchronized UtteranceTrace copy() {
+        return new UtteranceTrace(times.clone());
+    }
+
+    @Override
+    public synchronized String toString() {
+        long start = times[Stage.RECEIVED.ordinal()];
+        var sb = new StringBuilder();
+        Arrays.stream(Stage.values()).filter(n -> times[n.ordinal()] != 0).sorted(Comparator.comparingLong(n -> times[n.ordinal()])).forEach(n -> {
+            if (!sb.isEmpty())
+                sb.append(" ");
+            sb.append(n.getName()).append("=").append((times[n.ordinal()] - start) / 1000000).append("ms");
+        });
+        return sb.toString();
+    }
+
+    public enum Stage {
+        RECEIVED("received"),
+        PREPROCESSED("preprocessed"),
+        ENQUEUED("enqueued"),
+        DEQUEUED("dequeued"),
+        SYNTHESIS_START("synthesis_start"),
+        SYNTHESIS_END("synthesis_end"),
+        TRACK_LOADED("track_loaded"),
+        PLAY("play"),
+        END("end");
+
+        private final String name;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
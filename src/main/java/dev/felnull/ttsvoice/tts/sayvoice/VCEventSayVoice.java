@@ -44,13 +44,13 @@ public class VCEventSayVoice implements ISayVoice {
     }
 
     public static enum EventType {
-        JOIN((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getRight(), guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が参加しました"),
-        MOVE_FROM((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getRight(), guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が" + DiscordUtils.getChannelName(e.getChannelLeft(), e.getMember(), "別のチャンネル") + "から移動してきました"),
-        FORCE_MOVE_FROM((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getRight(), guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が" + DiscordUtils.getChannelName(e.getChannelLeft(), e.getMember(), "別のチャンネル") + "から移動させられました"),
-        LEAVE((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getRight(), guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が退出しました"),
-        FORCE_LEAVE((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getRight(), guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が切断されました"),
-        MOVE_TO((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getRight(), guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が" + DiscordUtils.getChannelName(e.getChannelJoined(), e.getMember(), "別のチャンネル") + "へ移動しました"),
-        FORCE_MOVE_TO((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getRight(), guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が" + DiscordUtils.getChannelName(e.getChannelJoined(), e.getMember(), "別のチャンネル") + "へ移動させられました");
+        JOIN((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が参加しました"),
+        MOVE_FROM((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が" + DiscordUtils.getChannelName(e.getChannelLeft(), e.getMember(), "別のチャンネル") + "から移動してきました"),
+        FORCE_MOVE_FROM((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が" + DiscordUtils.getChannelName(e.getChannelLeft(), e.getMember(), "別のチャンネル") + "から移動させられました"),
+        LEAVE((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が退出しました"),
+        FORCE_LEAVE((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が切断されました"),
+        MOVE_TO((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が" + DiscordUtils.getChannelName(e.getChannelJoined(), e.getMember(), "別のチャンネル") + "へ移動しました"),
+        FORCE_MOVE_TO((guildAndBotNumber, user, e) -> DiscordUtils.getName(guildAndBotNumber.getLeft(), user, user.getIdLong()) + "が" + DiscordUtils.getChannelName(e.getChannelJoined(), e.getMember(), "別のチャンネル") + "へ移動させられました");
 
         private final EventText eventText;
 
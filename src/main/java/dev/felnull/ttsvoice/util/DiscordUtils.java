@@ -1,14 +1,19 @@
 package dev.felnull.ttsvoice.util;
 
 import dev.felnull.ttsvoice.Main;
+import dev.felnull.ttsvoice.tts.MemberNameCache;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.*;
 
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class DiscordUtils {
     private static final Pattern codeBlockPattern = Pattern.compile("```(.|\n)*```");
     private static final String codeBlockSyoryaku = "コードブロック省略";
+    private static final String UNKNOWN_USER_NAME = "不明なユーザー";
+    private static final Pattern mentionPattern = Pattern.compile("<@!?(\\d+)>|<@&(\\d+)>|<#(\\d+)>|<a?:(\\w+):\\d+>");
 
     public static String getChannelName(GuildChannel channel, Member member, String other) {
         return other;
@@ -34,46 +39,17 @@ public class DiscordUtils {
         return txt;
     }
 
-    public static String getName(int botNumber, Guild guild, User user, long userId) {
-        return toNoMention(getName_(botNumber, guild, user, userId));
-    }
-
-    private static String getName_(int botNumber, Guild guild, User user, long userId) {
-        var unn = Main.SAVE_DATA.getUserNickName(userId);
-        if (unn != null)
-            return unn;
-
-        if (user == null)
-            user = Main.getJDA(botNumber).getUserById(userId);
-
-        if (user == null)
-            user = Main.getJDA(botNumber).retrieveUserById(userId).complete();
-
-        if (user == null)
-            return String.valueOf(userId);
-        var member = guild.getMember(user);
-
-        if (member == null)
-            member = guild.retrieveMemberById(user.getIdLong()).complete();
-
-        if (member == null)
-            return user.getName();
-        return getName_(member);
+    public static String getName(Guild guild, User user, long userId) {
+        var name = MemberNameCache.getInstance().getName(guild, userId);
+        if (name != null)
+            return name;
+        if (user != null)
+            return toNoMention(user.getName());
+        return UNKNOWN_USER_NAME;
     }
 
     public static String getName(Member member) {
-        return toNoMention(getName_(member));
-    }
-
-    private static String getName_(Member member) {
-        var unn = Main.SAVE_DATA.getUserNickName(member.getIdLong());
-        if (unn != null)
-            return unn;
-
-        var nick = member.getNickname();
-        if (nick == null)
-            return member.getUser().getName();
-        return nick;
+        return MemberNameCache.getInstance().getName(member);
     }
 
     public static boolean hasPermission(Member member) {
@@ -87,77 +63,37 @@ public class DiscordUtils {
         return true;
     }
 
-    public static String replaceMentionToText(int botNumber, Guild guild, String text) {
-        for (Message.MentionType mentionType : Message.MentionType.values()) {
-            text = replaceMentionToText(botNumber, guild, mentionType, text);
-        }
-        return text;
+    public static String replaceMentionToText(Guild guild, String text) {
+        return replaceMentionToText(text, new GuildMentionResolver(guild));
     }
 
-    public static String replaceMentionToText(int botNumber, Guild guild, Message.MentionType mention, String text) {
-        return mention.getPattern().matcher(text).replaceAll(n -> {
-            var p = n.group();
-            if (mention == Message.MentionType.USER)
-                return toUserMentionToText(botNumber, guild, p);
-            if (mention == Message.MentionType.CHANNEL)
-                return toChannelMentionToText(guild, p);
-            if (mention == Message.MentionType.ROLE)
-                return toRoleMentionToText(guild, p);
-            if (mention == Message.MentionType.EMOJI)
-                return toEmojiMentionToText(guild, p);
-            return p;
-        });
+    public static String replaceMentionToText(String text, MentionResolver resolver) {
+        if (text.indexOf('<') < 0)
+            return text;
+        return mentionPattern.matcher(text).replaceAll(n -> Matcher.quoteReplacement(toMentionText(resolver, n)));
     }
 
-    private static String toUserMentionToText(int botNumber, Guild guild, String mentionText) {
-        if (Message.MentionType.USER.getPattern().matcher(mentionText).matches()) {
-            mentionText = mentionText.substring(2, mentionText.length() - 1);
-            long id = Long.parseLong(mentionText);
-            var nick = Main.SAVE_DATA.getUserNickName(id);
-            if (nick != null)
-                return nick;
-
-            var m = guild.getMemberById(id);
-            if (m != null)
-                return getName(m);
-            var user = Main.getJDA(botNumber).getUserById(id);
-            if (user != null)
-                return getName(botNumber, guild, user, id);
-
-            var user2 = Main.getJDA(botNumber).retrieveUserById(id).complete();
-            if (user2 != null)
-                return getName(botNumber, guild, user2, id);
-        }
-        return mentionText;
-    }
+    private static String toMentionText(MentionResolver resolver, MatchResult mention) {
+        if (mention.group(4) != null)
+            return mention.group(4).replace('_', ' ');
 
-    private static String toChannelMentionToText(Guild guild, String mentionText) {
-        if (Message.MentionType.CHANNEL.getPattern().matcher(mentionText).matches()) {
-            mentionText = mentionText.substring(2, mentionText.length() - 1);
-            var m = guild.getGuildChannelById(mentionText);
-            if (m != null)
-                return m.getName();
+        long id;
+        try {
+            id = Long.parseLong(mention.group(1) != null ? mention.group(1) : mention.group(2) != null ? mention.group(2) : mention.group(3));
+        } catch (NumberFormatException ex) {
+            return mention.group();
         }
-        return mentionText;
-    }
 
-    private static String toRoleMentionToText(Guild guild, String mentionText) {
-        if (Message.MentionType.ROLE.getPattern().matcher(mentionText).matches()) {
-            mentionText = mentionText.substring(3, mentionText.length() - 1);
-            var m = guild.getRoleById(mentionText);
-            if (m != null)
-                return m.getName();
-        }
-        return mentionText;
-    }
-
-    private static String toEmojiMentionToText(Guild guild, String mentionText) {
-        if (Message.MentionType.EMOJI.getPattern().matcher(mentionText).matches()) {
-            mentionText = mentionText.substring(3);
-            mentionText = mentionText.substring(0, mentionText.indexOf(":"));
-            mentionText = mentionText.replaceAll("_", " ");
-        }
-        return mentionText;
+        String name;
+        if (mention.group(1) != null) {
+            name = resolver.getUserName(id);
+            if (name == null)
+                return UNKNOWN_USER_NAME;
+        } else if (mention.group(2) != null)
+            name = resolver.getRoleName(id);
+        else
+            name = resolver.getChannelName(id);
+        return name == null ? String.valueOf(id) : name;
     }
 
     public static boolean isNonAllowInm(long guildId) {
@@ -167,4 +103,31 @@ public class DiscordUtils {
     public static boolean isNonAllowCookie(long guildId) {
         return guildId == 930083398691733565L;
     }
+
+    public interface MentionResolver {
+        String getUserName(long id);
+
+        String getRoleName(long id);
+
+        String getChannelName(long id);
+    }
+
+    private static record GuildMentionResolver(Guild guild) implements MentionResolver {
+        @Override
+        public String getUserName(long id) {
+            return MemberNameCache.getInstance().getName(guild, id);
+        }
+
+        @Override
+        public String getRoleName(long id) {
+            var role = guild.getRoleById(id);
+            return role == null ? null : role.getName();
+        }
+
+        @Override
+        public String getChannelName(long id) {
+            var channel = guild.getGuildChannelById(id);
+            return channel == null ? null : channel.getName();
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package dev.felnull.ttsvoice.util;
+
+import dev.felnull.ttsvoice.Main;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+public class HttpUtils {
+    private static final String CONNECTION_POOL_SIZE_PROPERTY = "jdk.httpclient.connectionPoolSize";
+    private static final Map<String, HttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    public static void init() {
+        if (Main.CONFIG.httpConnectionPoolSize() > 0 && System.getProperty(CONNECTION_POOL_SIZE_PROPERTY) == null)
+            System.setProperty(CONNECTION_POOL_SIZE_PROPERTY, String.valueOf(Main.CONFIG.httpConnectionPoolSize()));
+    }
+
+    public static HttpClient getClient(String url, HttpClient.Version version) {
+        return CLIENTS.computeIfAbsent(version + " " + url, n -> HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofSeconds(Main.CONFIG.httpConnectTimeout()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build());
+    }
+
+    public static HttpRequest.Builder newRequest(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(Main.CONFIG.httpRequestTimeout()));
+    }
+
+    public static <T> HttpResponse<T> send(HttpClient client, HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException {
+        var cf = client.sendAsync(request, handler);
+        try {
+            return cf.get();
+        } catch (InterruptedException ex) {
+            cf.cancel(true);
+            throw ex;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException ioException)
+                throw ioException;
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    public static InputStream sendForStream(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        var res = send(client, request, HttpResponse.BodyHandlers.ofInputStream());
+        if (res.statusCode() != 200) {
+            res.body().close();
+            throw new IOException("Unexpected response status " + res.statusCode() + ": " + request.uri());
+        }
+        return res.body();
+    }
+
+    public static String sendForString(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        var res = send(client, request, HttpResponse.BodyHandlers.ofString());
+        if (res.statusCode() != 200)
+            throw new IOException("Unexpected response status " + res.statusCode() + ": " + request.uri());
+        return res.body();
+    }
+}
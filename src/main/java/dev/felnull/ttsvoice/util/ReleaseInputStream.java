@@ -0,0 +1,46 @@
+package dev.felnull.ttsvoice.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ReleaseInputStream extends FilterInputStream {
+    private final AtomicBoolean released = new AtomicBoolean();
+    private final Runnable release;
+
+    public ReleaseInputStream(InputStream in, Runnable release) {
+        super(in);
+        this.release = release;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int ret = super.read();
+        if (ret == -1)
+            release();
+        return ret;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int ret = super.read(b, off, len);
+        if (ret == -1)
+            release();
+        return ret;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            release();
+        }
+    }
+
+    private void release() {
+        if (released.compareAndSet(false, true))
+            release.run();
+    }
+}
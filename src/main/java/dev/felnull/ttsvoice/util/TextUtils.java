@@ -2,15 +2,102 @@ package dev.felnull.ttsvoice.util;
 
 import com.atilika.kuromoji.ipadic.Token;
 import com.atilika.kuromoji.ipadic.Tokenizer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.ibm.icu.text.Transliterator;
 import com.mariten.kanatools.KanaConverter;
 
+import java.text.Normalizer;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 public class TextUtils {
+    private static final Pattern SENTENCE_BOUNDARY = Pattern.compile("(?<=[。！？、!?\\n])");
+    private static final int MAX_REPEAT = 4;
+
+    public static List<String> splitSentences(String text, int minLength) {
+        List<String> ret = new ArrayList<>();
+        var sb = new StringBuilder();
+        for (String part : SENTENCE_BOUNDARY.split(text)) {
+            sb.append(part);
+            if (sb.toString().strip().length() >= minLength) {
+                ret.add(sb.toString().strip());
+                sb.setLength(0);
+            }
+        }
+
+        var last = sb.toString().strip();
+        if (!last.isEmpty()) {
+            if (ret.isEmpty()) {
+                ret.add(last);
+            } else {
+                ret.set(ret.size() - 1, ret.get(ret.size() - 1) + last);
+            }
+        }
+        return ret;
+    }
+
+    public static String normalizeSayText(String text) {
+        text = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        var sb = new StringBuilder(text.length());
+        int last = -1;
+        int repeat = 0;
+        boolean space = false;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isWhitespace(cp) || Character.isSpaceChar(cp)) {
+                space = true;
+                continue;
+            }
+            if (space && !sb.isEmpty()) {
+                sb.append(' ');
+                last = ' ';
+            }
+            space = false;
+
+            if (cp == last) {
+                repeat++;
+            } else {
+                last = cp;
+                repeat = 1;
+            }
+            if (repeat <= MAX_REPEAT || Character.isDigit(cp))
+                sb.appendCodePoint(cp);
+        }
+        return sb.toString();
+    }
+
+    private static final ThreadLocal<Transliterator> LATIN_TO_HIRAGANA = ThreadLocal.withInitial(() -> Transliterator.getInstance("Latin-Hiragana"));
+    private static final ThreadLocal<Transliterator> HIRAGANA_TO_LATIN = ThreadLocal.withInitial(() -> Transliterator.getInstance("Hiragana-Latin"));
+    private static final Cache<String, String> LATIN_TO_HIRAGANA_CACHE = CacheBuilder.newBuilder().maximumSize(1000).build();
+    private static final Cache<String, String> JAPANESE_TO_LATIN_CACHE = CacheBuilder.newBuilder().maximumSize(1000).build();
+    private static Tokenizer tokenizer;
+
+    public static void init() {
+        getTokenizer();
+        replaceJapaneseToLatin("初期化");
+        replaceLatinToHiragana("init");
+    }
+
+    private static synchronized Tokenizer getTokenizer() {
+        if (tokenizer == null)
+            tokenizer = new Tokenizer();
+        return tokenizer;
+    }
+
     public static String replaceLatinToHiragana(String text) {
-        var kataToHira = Transliterator.getInstance("Latin-Hiragana");
-        return kataToHira.transliterate(text);
+        var ret = LATIN_TO_HIRAGANA_CACHE.getIfPresent(text);
+        if (ret == null) {
+            ret = convertLatinToHiragana(text);
+            LATIN_TO_HIRAGANA_CACHE.put(text, ret);
+        }
+        return ret;
+    }
+
+    public static String convertLatinToHiragana(String text) {
+        return LATIN_TO_HIRAGANA.get().transliterate(text);
     }
 
     public static int getComplementPoint(String target, String text) {
@@ -27,8 +114,16 @@ public class TextUtils {
     }
 
     public static String replaceJapaneseToLatin(String text) {
-        Tokenizer tokenizer = new Tokenizer();
-        List<Token> list = tokenizer.tokenize(text);
+        var ret = JAPANESE_TO_LATIN_CACHE.getIfPresent(text);
+        if (ret == null) {
+            ret = convertJapaneseToLatin(text);
+            JAPANESE_TO_LATIN_CACHE.put(text, ret);
+        }
+        return ret;
+    }
+
+    public static String convertJapaneseToLatin(String text) {
+        List<Token> list = getTokenizer().tokenize(text);
         StringBuilder build = new StringBuilder();
 
         for (Token token : list) {
@@ -47,7 +142,6 @@ public class TextUtils {
 
 
     public static String replaceHiraganaToLatin(String text) {
-        Transliterator kataToHira = Transliterator.getInstance("Hiragana-Latin");
-        return kataToHira.transliterate(text);
+        return HIRAGANA_TO_LATIN.get().transliterate(text);
     }
 }
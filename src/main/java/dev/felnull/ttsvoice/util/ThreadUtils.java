@@ -0,0 +1,56 @@
+package dev.felnull.ttsvoice.util;
+
+import dev.felnull.ttsvoice.Main;
+import dev.felnull.ttsvoice.metrics.Metrics;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ThreadUtils {
+    private static final Logger LOGGER = LogManager.getLogger(ThreadUtils.class);
+    private static final boolean VIRTUAL_THREADS_SUPPORTED = Runtime.version().feature() >= 21;
+    private static final AtomicBoolean VIRTUAL_THREADS_LOGGED = new AtomicBoolean();
+
+    public static ExecutorService createExecutor(String namingPattern, int threads) {
+        if (Main.CONFIG.virtualThreads() && VIRTUAL_THREADS_SUPPORTED) {
+            var executor = createVirtualThreadExecutor();
+            if (executor != null)
+                return executor;
+        } else if (Main.CONFIG.virtualThreads() && VIRTUAL_THREADS_LOGGED.compareAndSet(false, true)) {
+            LOGGER.debug("Virtual threads require Java 21 or later, use platform threads");
+        }
+        return registerMetrics((ThreadPoolExecutor) Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder().namingPattern(namingPattern).daemon(true).build()), namingPattern);
+    }
+
+    public static ExecutorService createCachedExecutor(String namingPattern) {
+        return registerMetrics((ThreadPoolExecutor) Executors.newCachedThreadPool(new BasicThreadFactory.Builder().namingPattern(namingPattern).daemon(true).build()), namingPattern);
+    }
+
+    private static ExecutorService registerMetrics(ThreadPoolExecutor executor, String namingPattern) {
+        var labels = Metrics.labels("executor", namingPattern.replace("-%d", ""));
+        Metrics.getInstance().gauge("ttsbot_executor_active_threads", "Number of threads running tasks", () -> Map.of(labels, executor.getActiveCount()));
+        Metrics.getInstance().gauge("ttsbot_executor_max_threads", "Maximum number of threads", () -> Map.of(labels, executor.getMaximumPoolSize()));
+        Metrics.getInstance().gauge("ttsbot_executor_queued_tasks", "Number of tasks waiting for a thread", () -> Map.of(labels, executor.getQueue().size()));
+        return executor;
+    }
+
+    public static ScheduledExecutorService createScheduledExecutor(String namingPattern) {
+        return Executors.newSingleThreadScheduledExecutor(new BasicThreadFactory.Builder().namingPattern(namingPattern).daemon(true).build());
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException ex) {
+            LOGGER.error("Failed to create virtual thread executor", ex);
+            return null;
+        }
+    }
+}
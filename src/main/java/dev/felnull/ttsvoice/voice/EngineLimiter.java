@@ -0,0 +1,23 @@
+package dev.felnull.ttsvoice.voice;
+
+import dev.felnull.ttsvoice.Main;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+public class EngineLimiter {
+    private static final Map<String, Semaphore> SEMAPHORES = new ConcurrentHashMap<>();
+
+    private static Semaphore getSemaphore(String engine) {
+        return SEMAPHORES.computeIfAbsent(engine, n -> new Semaphore(Main.CONFIG.engineConcurrency().getOrDefault(n, Integer.MAX_VALUE), true));
+    }
+
+    public static void acquire(String engine) throws InterruptedException {
+        getSemaphore(engine).acquire();
+    }
+
+    public static void release(String engine) {
+        getSemaphore(engine).release();
+    }
+}
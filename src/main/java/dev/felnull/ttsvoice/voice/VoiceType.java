@@ -2,6 +2,7 @@ package dev.felnull.ttsvoice.voice;
 
 import dev.felnull.ttsvoice.Main;
 import dev.felnull.ttsvoice.tts.sayvoice.ISayVoice;
+import dev.felnull.ttsvoice.util.TextUtils;
 
 import java.io.InputStream;
 
@@ -9,6 +10,12 @@ public interface VoiceType extends HasTitleAndID{
 
     InputStream getSound(String text) throws Exception;
 
+    default InputStream getSound(String text, boolean prefetch) throws Exception {
+        return getSound(text);
+    }
+
+    String getEngineName();
+
     default String replace(String text) {
         return text;
     }
@@ -18,7 +25,7 @@ public interface VoiceType extends HasTitleAndID{
     }
 
     default String toSayVoiceText(ISayVoice sayVoice) {
-        return replace(sayVoice.getSayVoiceText());
+        return TextUtils.normalizeSayText(replace(TextUtils.normalizeSayText(sayVoice.getSayVoiceText())));
     }
 
     default int getMaxTextLength(long guildId) {
@@ -32,4 +39,12 @@ public interface VoiceType extends HasTitleAndID{
     default boolean isCached(ISayVoice sayVoice) {
         return true;
     }
+
+    default boolean isChunkable() {
+        return true;
+    }
+
+    default String getCacheParameters() {
+        return "";
+    }
 }
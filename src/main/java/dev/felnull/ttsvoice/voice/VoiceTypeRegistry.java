@@ -0,0 +1,83 @@
+package dev.felnull.ttsvoice.voice;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import dev.felnull.ttsvoice.Main;
+import dev.felnull.ttsvoice.util.DiscordUtils;
+import dev.felnull.ttsvoice.voice.googletranslate.GoogleTranslateTTSType;
+import dev.felnull.ttsvoice.voice.reinoare.cookie.CookieManager;
+import dev.felnull.ttsvoice.voice.reinoare.inm.INMManager;
+import dev.felnull.ttsvoice.voice.voicetext.VTVoiceTypes;
+import dev.felnull.ttsvoice.voice.vvengine.VVEVoiceType;
+import dev.felnull.ttsvoice.voice.vvengine.coeiroink.CoeiroInkManager;
+import dev.felnull.ttsvoice.voice.vvengine.voicevox.VoiceVoxManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class VoiceTypeRegistry {
+    private static final VoiceTypeRegistry INSTANCE = new VoiceTypeRegistry();
+    private volatile Snapshot snapshot;
+
+    public static VoiceTypeRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    private Snapshot getSnapshot() {
+        var voiceVoxSpeakers = VoiceVoxManager.getInstance().getSpeakers();
+        var coeiroInkSpeakers = CoeiroInkManager.getInstance().getSpeakers();
+        var s = snapshot;
+        if (s != null && s.voiceVoxSpeakers() == voiceVoxSpeakers && s.coeiroInkSpeakers() == coeiroInkSpeakers)
+            return s;
+
+        ImmutableList.Builder<VoiceType> builder = new ImmutableList.Builder<>();
+        builder.addAll(voiceVoxSpeakers);
+        builder.addAll(coeiroInkSpeakers);
+        builder.add(VTVoiceTypes.values());
+        builder.add(GoogleTranslateTTSType.values());
+        builder.add(INMManager.getInstance().getVoice());
+        builder.add(CookieManager.getInstance().getVoice());
+        var all = builder.build();
+
+        Map<String, VoiceType> byId = new LinkedHashMap<>();
+        for (VoiceType voiceType : all) {
+            byId.putIfAbsent(voiceType.getId(), voiceType);
+        }
+
+        s = new Snapshot(voiceVoxSpeakers, coeiroInkSpeakers, all, ImmutableMap.copyOf(byId));
+        snapshot = s;
+        return s;
+    }
+
+    public VoiceType getVoiceTypeById(String id, long userId, long guildId) {
+        var voiceType = getSnapshot().byId().get(id);
+        if (voiceType == null || !isAvailable(voiceType, userId, guildId))
+            return null;
+        return voiceType;
+    }
+
+    public List<VoiceType> getVoiceTypes(long userId, long guildId) {
+        return getSnapshot().all().stream().filter(n -> isAvailable(n, userId, guildId)).toList();
+    }
+
+    public boolean isAvailable(VoiceType voiceType, long userId, long guildId) {
+        if (voiceType == INMManager.getInstance().getVoice())
+            return isInmAllowed(userId, guildId);
+        if (voiceType == CookieManager.getInstance().getVoice())
+            return isCookieAllowed(userId, guildId);
+        return true;
+    }
+
+    public boolean isInmAllowed(long userId, long guildId) {
+        return Main.getServerConfig(guildId).isInmMode(guildId) && !Main.CONFIG.inmDenyUser().contains(userId) && !DiscordUtils.isNonAllowInm(guildId);
+    }
+
+    public boolean isCookieAllowed(long userId, long guildId) {
+        return Main.getServerConfig(guildId).isCookieMode(guildId) && !Main.CONFIG.cookieDenyUser().contains(userId) && !DiscordUtils.isNonAllowCookie(guildId);
+    }
+
+    private static record Snapshot(List<VVEVoiceType> voiceVoxSpeakers, List<VVEVoiceType> coeiroInkSpeakers,
+                                   List<VoiceType> all, Map<String, VoiceType> byId) {
+    }
+}
@@ -1,6 +1,8 @@
 package dev.felnull.ttsvoice.voice.googletranslate;
 
 import dev.felnull.fnjl.util.FNURLUtil;
+import dev.felnull.ttsvoice.util.ReleaseInputStream;
+import dev.felnull.ttsvoice.voice.EngineLimiter;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -12,6 +14,7 @@ import java.nio.charset.StandardCharsets;
 
 public class GoogleTranslateTTSManager {
     private static final GoogleTranslateTTSManager INSTANCE = new GoogleTranslateTTSManager();
+    public static final String NAME = "google-translate-tts";
     private static final String TTS_URL = "https://translate.google.com.vn/translate_tts?ie=UTF-8&q=%s&tl=%s&client=tw-ob";
 
     public static GoogleTranslateTTSManager getInstance() {
@@ -22,6 +25,14 @@ public class GoogleTranslateTTSManager {
         text = URLEncoder.encode(text, StandardCharsets.UTF_8);
         text = new URI(text).toASCIIString();
         var url = String.format(TTS_URL, text, lang);
-        return FNURLUtil.getStream(new URL(url));
+        EngineLimiter.acquire(NAME);
+        InputStream ret = null;
+        try {
+            ret = new ReleaseInputStream(FNURLUtil.getStream(new URL(url)), () -> EngineLimiter.release(NAME));
+            return ret;
+        } finally {
+            if (ret == null)
+                EngineLimiter.release(NAME);
+        }
     }
 }
@@ -39,6 +39,11 @@ public enum GoogleTranslateTTSType implements VoiceType {
         return lang;
     }
 
+    @Override
+    public String getEngineName() {
+        return GoogleTranslateTTSManager.NAME;
+    }
+
     @Override
     public InputStream getSound(String text) throws Exception {
         if (text.isEmpty()) return null;
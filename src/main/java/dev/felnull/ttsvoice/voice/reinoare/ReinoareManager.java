@@ -10,6 +10,7 @@ import java.util.Random;
 import java.util.UUID;
 
 public abstract class ReinoareManager {
+    public static final String NAME = "reinoare";
     public static final String INC_URL = "https://www.morimori0317.net/inc-sounds-search";
     public static final Gson GSON = new Gson();
     public static final Random RANDOM = new Random();
@@ -7,6 +7,7 @@ import com.google.gson.JsonObject;
 import dev.felnull.fnjl.util.FNDataUtil;
 import dev.felnull.fnjl.util.FNStringUtil;
 import dev.felnull.fnjl.util.FNURLUtil;
+import dev.felnull.ttsvoice.voice.EngineLimiter;
 import dev.felnull.ttsvoice.voice.reinoare.ReinoareManager;
 import dev.felnull.ttsvoice.voice.reinoare.inm.INMManager;
 
@@ -30,15 +31,20 @@ public class CookieManager extends ReinoareManager {
         return INSTANCE;
     }
 
-    public List<CookieEntry> search(String text) throws URISyntaxException, IOException {
+    public List<CookieEntry> search(String text) throws URISyntaxException, IOException, InterruptedException {
         return search(text, 150);
     }
 
-    public List<CookieEntry> search(String text, int max) throws URISyntaxException, IOException {
+    public List<CookieEntry> search(String text, int max) throws URISyntaxException, IOException, InterruptedException {
         text = URLEncoder.encode(text, StandardCharsets.UTF_8);
         text = new URI(text).toASCIIString();
-        var ret = FNURLUtil.getResponse(new URL(INC_URL + "/search?s=" + text + "&t=cookie_star&m=" + max));
-        var jo = GSON.fromJson(ret, JsonObject.class);
+        JsonObject jo;
+        EngineLimiter.acquire(NAME);
+        try {
+            jo = GSON.fromJson(FNURLUtil.getResponse(new URL(INC_URL + "/search?s=" + text + "&t=cookie_star&m=" + max)), JsonObject.class);
+        } finally {
+            EngineLimiter.release(NAME);
+        }
         if (!jo.has("result"))
             return ImmutableList.of();
         var ja = jo.getAsJsonArray("result");
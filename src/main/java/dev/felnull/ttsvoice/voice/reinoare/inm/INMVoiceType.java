@@ -3,6 +3,7 @@ package dev.felnull.ttsvoice.voice.reinoare.inm;
 import dev.felnull.ttsvoice.tts.sayvoice.ISayVoice;
 import dev.felnull.ttsvoice.tts.sayvoice.VCEventSayVoice;
 import dev.felnull.ttsvoice.voice.URLVoiceType;
+import dev.felnull.ttsvoice.voice.reinoare.ReinoareManager;
 
 import java.io.InputStream;
 
@@ -17,6 +18,11 @@ public class INMVoiceType implements URLVoiceType {
         return "reinoare-inm";
     }
 
+    @Override
+    public String getEngineName() {
+        return ReinoareManager.NAME;
+    }
+
     @Override
     public String getSayVoiceSoundURL(ISayVoice sayVoice) throws Exception {
         if (sayVoice instanceof VCEventSayVoice)
@@ -51,6 +57,11 @@ public class INMVoiceType implements URLVoiceType {
         return URLVoiceType.super.getSayVoiceSound(sayVoice);
     }
 
+    @Override
+    public boolean isChunkable() {
+        return false;
+    }
+
     @Override
     public boolean isCached(ISayVoice sayVoice) {
         return false;
@@ -39,6 +39,11 @@ public enum VTVoiceTypes implements VoiceType {
         return "voicetext-" + getName();
     }
 
+    @Override
+    public String getEngineName() {
+        return VoiceTextManager.NAME;
+    }
+
     @Override
     public InputStream getSound(String text) throws Exception {
         return VoiceTextManager.getInstance().getVoice(text, this);
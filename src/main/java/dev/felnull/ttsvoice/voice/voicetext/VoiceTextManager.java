@@ -2,6 +2,9 @@ package dev.felnull.ttsvoice.voice.voicetext;
 
 import dev.felnull.fnjl.util.FNStringUtil;
 import dev.felnull.ttsvoice.Main;
+import dev.felnull.ttsvoice.util.HttpUtils;
+import dev.felnull.ttsvoice.util.ReleaseInputStream;
+import dev.felnull.ttsvoice.voice.EngineLimiter;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -10,12 +13,12 @@ import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 
 public class VoiceTextManager {
     private static final VoiceTextManager INSTANCE = new VoiceTextManager();
     private static final String API_URL = "https://api.voicetext.jp/v1/tts";
+    public static final String NAME = "voicetext";
 
     public static VoiceTextManager getInstance() {
         return INSTANCE;
@@ -28,10 +31,17 @@ public class VoiceTextManager {
     public InputStream getVoice(String text, VTVoiceTypes vtVoiceTypes) throws IOException, InterruptedException, URISyntaxException {
         text = URLEncoder.encode(text, StandardCharsets.UTF_8);
         text = new URI(text).toASCIIString();
-        var hc = HttpClient.newHttpClient();
+        var hc = HttpUtils.getClient(API_URL, Main.CONFIG.voiceTextHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1);
         String basic = "Basic " + FNStringUtil.encodeBase64(getAPIKey() + ":");
-        var request = HttpRequest.newBuilder(URI.create(API_URL)).header("Authorization", basic).header("Content-Type", "application/x-www-form-urlencoded; charset=utf-8").POST(HttpRequest.BodyPublishers.ofString(String.format("text=%s&speaker=%s", text, vtVoiceTypes.getName()))).version(HttpClient.Version.HTTP_1_1).build();
-        var res = hc.send(request, HttpResponse.BodyHandlers.ofInputStream());
-        return res.body();
+        var request = HttpUtils.newRequest(API_URL).header("Authorization", basic).header("Content-Type", "application/x-www-form-urlencoded; charset=utf-8").POST(HttpRequest.BodyPublishers.ofString(String.format("text=%s&speaker=%s", text, vtVoiceTypes.getName()))).build();
+        EngineLimiter.acquire(NAME);
+        InputStream ret = null;
+        try {
+            ret = new ReleaseInputStream(HttpUtils.sendForStream(hc, request), () -> EngineLimiter.release(NAME));
+            return ret;
+        } finally {
+            if (ret == null)
+                EngineLimiter.release(NAME);
+        }
     }
 }
@@ -0,0 +1,143 @@
+package dev.felnull.ttsvoice.voice.vvengine;
+
+import dev.felnull.ttsvoice.metrics.Metrics;
+import dev.felnull.ttsvoice.util.HttpUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+public class EngineBalancer {
+    private static final Logger LOGGER = LogManager.getLogger(EngineBalancer.class);
+    private static final Timer HEALTH_CHECK_TIMER = new Timer("engine-health-check", true);
+    private static final double EWMA_ALPHA = 0.3d;
+    private static final int MAX_FAILURES = 3;
+    private static final long EJECT_TIME = 30 * 1000;
+    private static final long MAX_EJECT_TIME = 5 * 60 * 1000;
+    private static final long HEALTH_CHECK_INTERVAL = 10 * 1000;
+    private final Map<String, EngineState> states = new ConcurrentHashMap<>();
+    private final String name;
+    private final Supplier<List<String>> engineURLs;
+
+    public EngineBalancer(String name, Supplier<List<String>> engineURLs) {
+        this.name = name;
+        this.engineURLs = engineURLs;
+        Metrics.getInstance().gauge("ttsbot_engine_in_flight", "Number of in-flight engine requests", () -> states.entrySet().stream()
+                .collect(Collectors.toMap(n -> Metrics.labels("engine", name, "url", n.getKey()), n -> n.getValue().inFlight.get())));
+        Metrics.getInstance().gauge("ttsbot_engine_ejected", "Whether the engine is ejected from the balancer", () -> states.entrySet().stream()
+                .collect(Collectors.toMap(n -> Metrics.labels("engine", name, "url", n.getKey()), n -> n.getValue().isEjected(System.currentTimeMillis()) ? 1 : 0)));
+        HEALTH_CHECK_TIMER.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                checkEjectedEngines();
+            }
+        }, HEALTH_CHECK_INTERVAL, HEALTH_CHECK_INTERVAL);
+    }
+
+    private EngineState getState(String url) {
+        return states.computeIfAbsent(url, n -> new EngineState());
+    }
+
+    public String select(String endpoint) {
+        var urls = engineURLs.get();
+        if (urls.isEmpty())
+            throw new IllegalStateException("No " + name + " engine url");
+        if (urls.size() == 1)
+            return urls.get(0);
+
+        long now = System.currentTimeMillis();
+        var healthy = urls.stream().filter(n -> !getState(n).isEjected(now)).toList();
+        if (healthy.isEmpty())
+            healthy = urls;
+        if (healthy.size() == 1)
+            return healthy.get(0);
+
+        var random = ThreadLocalRandom.current();
+        int a = random.nextInt(healthy.size());
+        int b = random.nextInt(healthy.size() - 1);
+        if (b >= a) b++;
+
+        var ua = healthy.get(a);
+        var ub = healthy.get(b);
+        return getState(ua).getCost(endpoint) <= getState(ub).getCost(endpoint) ? ua : ub;
+    }
+
+    public long start(String url) {
+        getState(url).inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void succeeded(String url, String endpoint, long startTime) {
+        long time = System.nanoTime() - startTime;
+        var state = getState(url);
+        state.updateLatency(endpoint, time / 1000000d);
+        state.succeeded();
+        Metrics.getInstance().histogram("ttsbot_engine_request_seconds", "Latency of successful engine requests", "engine", name, "url", url, "endpoint", endpoint).observeNanos(time);
+        Metrics.getInstance().counter("ttsbot_engine_requests_total", "Number of engine requests", "engine", name, "url", url, "result", "success").increment();
+    }
+
+    public void failed(String url) {
+        getState(url).failed(url);
+        Metrics.getInstance().counter("ttsbot_engine_requests_total", "Number of engine requests", "engine", name, "url", url, "result", "failure").increment();
+    }
+
+    public void end(String url) {
+        getState(url).inFlight.decrementAndGet();
+    }
+
+    private void checkEjectedEngines() {
+        long now = System.currentTimeMillis();
+        for (String url : engineURLs.get()) {
+            var state = getState(url);
+            if (!state.isEjected(now)) continue;
+            try {
+                HttpUtils.sendForString(HttpUtils.getClient(url, HttpClient.Version.HTTP_1_1), HttpUtils.newRequest(url + "/version").GET().build());
+                state.succeeded();
+                LOGGER.info("Restored " + name + " engine: " + url);
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private class EngineState {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Map<String, Double> latencies = new ConcurrentHashMap<>();
+        private volatile long ejectedUntil;
+        private int failures;
+
+        private boolean isEjected(long now) {
+            return ejectedUntil > now;
+        }
+
+        private double getCost(String endpoint) {
+            return (latencies.getOrDefault(endpoint, 0d) + 1d) * (inFlight.get() + 1);
+        }
+
+        private void updateLatency(String endpoint, double time) {
+            latencies.merge(endpoint, time, (latency, n) -> latency + EWMA_ALPHA * (n - latency));
+        }
+
+        private synchronized void succeeded() {
+            failures = 0;
+            ejectedUntil = 0;
+        }
+
+        private synchronized void failed(String url) {
+            failures++;
+            if (failures >= MAX_FAILURES) {
+                long time = Math.min(EJECT_TIME << Math.min(failures - MAX_FAILURES, 4), MAX_EJECT_TIME);
+                ejectedUntil = System.currentTimeMillis() + time;
+                LOGGER.warn("Ejected " + name + " engine for " + time / 1000 + "s after " + failures + " failures: " + url);
+            }
+        }
+    }
+}
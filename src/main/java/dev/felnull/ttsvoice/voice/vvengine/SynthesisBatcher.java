@@ -0,0 +1,125 @@
+package dev.felnull.ttsvoice.voice.vvengine;
+
+import com.google.gson.JsonObject;
+import dev.felnull.ttsvoice.Main;
+import dev.felnull.ttsvoice.metrics.Metrics;
+import dev.felnull.ttsvoice.util.ThreadUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+public class SynthesisBatcher {
+    private static final Logger LOGGER = LogManager.getLogger(SynthesisBatcher.class);
+    private static final ScheduledExecutorService FLUSH_EXECUTOR = ThreadUtils.createScheduledExecutor("synthesis-batch-flush-%d");
+    private static final ExecutorService SEND_EXECUTOR = ThreadUtils.createExecutor("synthesis-batch-%d", Runtime.getRuntime().availableProcessors());
+    private final Map<Integer, Batch> batches = new HashMap<>();
+    private final VVEngineManager manager;
+
+    public SynthesisBatcher(VVEngineManager manager) {
+        this.manager = manager;
+    }
+
+    public InputStream submit(JsonObject query, int speakerId) throws IOException, InterruptedException {
+        var future = new CompletableFuture<byte[]>();
+        Batch full = null;
+
+        synchronized (batches) {
+            var batch = batches.get(speakerId);
+            if (batch == null) {
+                var created = new Batch(speakerId);
+                created.flush = FLUSH_EXECUTOR.schedule(() -> flush(created), Main.CONFIG.synthesisBatchWindow(), TimeUnit.MILLISECONDS);
+                batches.put(speakerId, created);
+                batch = created;
+            }
+            batch.queries.add(query);
+            batch.futures.add(future);
+
+            if (batch.queries.size() >= Main.CONFIG.synthesisBatchSize()) {
+                batches.remove(speakerId);
+                batch.flush.cancel(false);
+                full = batch;
+            }
+        }
+
+        if (full != null) {
+            var batch = full;
+            SEND_EXECUTOR.execute(() -> send(batch));
+        }
+
+        try {
+            return new ByteArrayInputStream(future.get());
+        } catch (InterruptedException ex) {
+            future.cancel(false);
+            throw ex;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException ioException)
+                throw ioException;
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    private void flush(Batch batch) {
+        synchronized (batches) {
+            if (!batches.remove(batch.speakerId, batch))
+                return;
+        }
+        SEND_EXECUTOR.execute(() -> send(batch));
+    }
+
+    private void send(Batch batch) {
+        List<JsonObject> queries = new ArrayList<>();
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        for (int i = 0; i < batch.futures.size(); i++) {
+            if (batch.futures.get(i).isDone()) continue;
+            queries.add(batch.queries.get(i));
+            futures.add(batch.futures.get(i));
+        }
+        if (queries.isEmpty())
+            return;
+
+        if (queries.size() > 1) {
+            try {
+                var voices = manager.getVoices(queries, batch.speakerId);
+                if (voices != null) {
+                    Metrics.getInstance().counter("ttsbot_synthesis_batches_total", "Number of batched synthesis requests", "engine", manager.getName()).increment();
+                    Metrics.getInstance().counter("ttsbot_synthesis_batched_utterances_total", "Number of utterances synthesized in batches", "engine", manager.getName()).increment(queries.size());
+                    for (int i = 0; i < futures.size(); i++) {
+                        futures.get(i).complete(voices.get(i));
+                    }
+                    return;
+                }
+            } catch (Exception ex) {
+                LOGGER.warn("Failed to synthesize batch of " + queries.size() + ", retry one by one", ex);
+            }
+        }
+
+        for (int i = 0; i < queries.size(); i++) {
+            var future = futures.get(i);
+            if (future.isDone()) continue;
+            try (var stream = manager.getVoce(queries.get(i), batch.speakerId)) {
+                future.complete(stream.readAllBytes());
+            } catch (Exception ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+    }
+
+    private static class Batch {
+        private final List<JsonObject> queries = new ArrayList<>();
+        private final List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        private final int speakerId;
+        private ScheduledFuture<?> flush;
+
+        private Batch(int speakerId) {
+            this.speakerId = speakerId;
+        }
+    }
+}
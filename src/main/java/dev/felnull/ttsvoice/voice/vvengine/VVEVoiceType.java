@@ -7,6 +7,7 @@ import java.io.InputStream;
 import java.util.Objects;
 
 public abstract class VVEVoiceType implements VoiceType {
+    private static final int OUTPUT_SAMPLING_RATE = 20000;
     private final String engineName;
     private final int vveId;
     private final String name;
@@ -31,6 +32,7 @@ public abstract class VVEVoiceType implements VoiceType {
         return vveId;
     }
 
+    @Override
     public String getEngineName() {
         return engineName;
     }
@@ -49,10 +51,15 @@ public abstract class VVEVoiceType implements VoiceType {
 
     @Override
     public InputStream getSound(String text) throws Exception {
+        return getSound(text, false);
+    }
+
+    @Override
+    public InputStream getSound(String text, boolean prefetch) throws Exception {
         var vvm = getEngineManager();
         var q = vvm.getQuery(text, vveId);
-        q.addProperty("outputSamplingRate", 20000);
-        return vvm.getVoce(q, vveId);
+        q.addProperty("outputSamplingRate", OUTPUT_SAMPLING_RATE);
+        return prefetch ? vvm.synthesis(q, vveId) : vvm.getVoce(q, vveId);
     }
 
     @Override
@@ -60,6 +67,11 @@ public abstract class VVEVoiceType implements VoiceType {
         return TextUtils.replaceLatinToHiragana(VoiceType.super.replace(text));
     }
 
+    @Override
+    public String getCacheParameters() {
+        return "outputSamplingRate=" + OUTPUT_SAMPLING_RATE;
+    }
+
 
     @Override
     public boolean equals(Object o) {
@@ -5,8 +5,10 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import dev.felnull.fnjl.tuple.FNPair;
-import dev.felnull.fnjl.util.FNURLUtil;
+import dev.felnull.ttsvoice.Main;
+import dev.felnull.ttsvoice.util.HttpUtils;
+import dev.felnull.ttsvoice.util.ReleaseInputStream;
+import dev.felnull.ttsvoice.voice.EngineLimiter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -14,20 +16,32 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.net.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 public abstract class VVEngineManager {
     private static final Logger LOGGER = LogManager.getLogger(VVEngineManager.class);
     private static final Gson GSON = new Gson();
-    private final Map<String, Integer> LOADING_ENGINES = new HashMap<>();
-    private final Map<String, Long> LAST_LOAD_ENGINE_TIMES = new HashMap<>();
-    private List<VVEVoiceType> SPEAKERS;
-    private long lastSpeakersLoadTime;
+    private static final String ENDPOINT_SPEAKERS = "speakers";
+    private static final String ENDPOINT_QUERY = "audio_query";
+    private static final String ENDPOINT_SYNTHESIS = "synthesis";
+    private static final String ENDPOINT_MULTI_SYNTHESIS = "multi_synthesis";
+    private final EngineBalancer balancer = new EngineBalancer(getName(), this::getEngineURLs);
+    private final SynthesisBatcher batcher = new SynthesisBatcher(this);
+    private volatile boolean multiSynthesis = true;
+    private static final Timer SPEAKERS_TIMER = new Timer("speakers-refresh", true);
+    private final AtomicBoolean speakersLoading = new AtomicBoolean();
+    private volatile List<VVEVoiceType> SPEAKERS;
+    private volatile long lastSpeakersLoadTime;
 
     abstract public List<String> getEngineURLs();
 
@@ -35,76 +49,68 @@ public abstract class VVEngineManager {
 
     abstract protected String getName();
 
-    public String getEngineURL() {
-        List<String> mostEngines = new ArrayList<>();
-        int mct = Integer.MAX_VALUE;
-        for (String vvEngineURL : getEngineURLs()) {
-            int ct = getLoadingEnginesCount(vvEngineURL);
-            if (ct < mct) {
-                mostEngines.clear();
-                mostEngines.add(vvEngineURL);
-                mct = ct;
-            } else if (ct == mct) {
-                mostEngines.add(vvEngineURL);
-            }
-        }
-
-        var ky = mostEngines.stream().map(n -> {
-            synchronized (LAST_LOAD_ENGINE_TIMES) {
-                return FNPair.of(n, LAST_LOAD_ENGINE_TIMES.computeIfAbsent(n, v -> 0L));
-            }
-        }).sorted(Comparator.comparingLong(FNPair::getRight)).toList();
-
-        return ky.get(0).getKey();
+    public String getEngineURL(String endpoint) {
+        return balancer.select(endpoint);
     }
 
-    private int getLoadingEnginesCount(String engineURL) {
-        synchronized (LOADING_ENGINES) {
-            return LOADING_ENGINES.computeIfAbsent(engineURL, n -> 0);
-        }
-    }
-
-    private void loadStartEngine(String engineURL) {
-        synchronized (LAST_LOAD_ENGINE_TIMES) {
-            LAST_LOAD_ENGINE_TIMES.put(engineURL, System.currentTimeMillis());
-        }
-        synchronized (LOADING_ENGINES) {
-            int pl = getLoadingEnginesCount(engineURL);
-            LOADING_ENGINES.put(engineURL, pl + 1);
-        }
+    private HttpClient getClient(String engineURL) {
+        return HttpUtils.getClient(engineURL, HttpClient.Version.HTTP_1_1);
     }
 
-    private void loadEndEngine(String engineURL) {
-        synchronized (LOADING_ENGINES) {
-            int pl = getLoadingEnginesCount(engineURL);
-            if (pl > 0)
-                LOADING_ENGINES.put(engineURL, pl - 1);
-        }
+    public void init() {
+        loadSpeakers();
+        SPEAKERS_TIMER.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                if (isSpeakersStale())
+                    loadSpeakers();
+            }
+        }, 1000 * 60, 1000 * 60);
     }
 
     public List<VVEVoiceType> getSpeakers() {
-        loadSpeakers();
-        if (SPEAKERS == null) return ImmutableList.of();
-        return SPEAKERS;
+        var speakers = SPEAKERS;
+        if (isSpeakersStale() && speakersLoading.compareAndSet(false, true)) {
+            SPEAKERS_TIMER.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    try {
+                        loadSpeakers();
+                    } finally {
+                        speakersLoading.set(false);
+                    }
+                }
+            }, 0);
+        }
+        if (speakers == null) return ImmutableList.of();
+        return speakers;
     }
 
-    private synchronized void loadSpeakers() {
+    private boolean isSpeakersStale() {
         long tim = 1000 * 60 * 10;
         if (SPEAKERS == null)
             tim = 1000 * 60;
+        return System.currentTimeMillis() - lastSpeakersLoadTime >= tim;
+    }
 
-        if (System.currentTimeMillis() - lastSpeakersLoadTime < tim)
+    private synchronized void loadSpeakers() {
+        if (!isSpeakersStale() || getEngineURLs().isEmpty())
             return;
 
         try {
             JsonArray ja;
 
-            var url = getEngineURL();
-            loadStartEngine(url);
-            try (Reader reader = new InputStreamReader(FNURLUtil.getStream(new URL(url + "/speakers")))) {
+            var url = getEngineURL(ENDPOINT_SPEAKERS);
+            long st = balancer.start(url);
+            var request = HttpUtils.newRequest(url + "/speakers").GET().build();
+            try (Reader reader = new InputStreamReader(HttpUtils.sendForStream(getClient(url), request), StandardCharsets.UTF_8)) {
                 ja = GSON.fromJson(reader, JsonArray.class);
+                balancer.succeeded(url, ENDPOINT_SPEAKERS, st);
+            } catch (IOException ex) {
+                balancer.failed(url);
+                throw ex;
             } finally {
-                loadEndEngine(url);
+                balancer.end(url);
             }
 
             ImmutableList.Builder<VVEVoiceType> speakers = new ImmutableList.Builder<>();
@@ -131,30 +137,100 @@ public abstract class VVEngineManager {
         }
     }
 
-    public JsonObject getQuery(String text, int speakerId) throws URISyntaxException, IOException {
+    public JsonObject getQuery(String text, int speakerId) throws URISyntaxException, IOException, InterruptedException {
         text = URLEncoder.encode(text, StandardCharsets.UTF_8);
         text = new URI(text).toASCIIString();
 
-        var url = getEngineURL();
-        loadStartEngine(url);
+        EngineLimiter.acquire(getName());
+        var url = getEngineURL(ENDPOINT_QUERY);
+        long st = balancer.start(url);
         try {
-            var ret = FNURLUtil.getResponseByPOST(new URL(String.format(url + "/audio_query?text=%s&speaker=" + speakerId, text)), "", "", "");
-            return GSON.fromJson(ret.getResponseString(), JsonObject.class);
+            var request = HttpUtils.newRequest(url + "/audio_query?text=" + text + "&speaker=" + speakerId).POST(HttpRequest.BodyPublishers.noBody()).build();
+            var ret = GSON.fromJson(HttpUtils.sendForString(getClient(url), request), JsonObject.class);
+            balancer.succeeded(url, ENDPOINT_QUERY, st);
+            return ret;
+        } catch (IOException ex) {
+            balancer.failed(url);
+            throw ex;
         } finally {
-            loadEndEngine(url);
+            end(url);
         }
     }
 
     public InputStream getVoce(JsonObject query, int speakerId) throws IOException, InterruptedException {
-        var url = getEngineURL();
-        loadStartEngine(url);
+        EngineLimiter.acquire(getName());
+        var url = getEngineURL(ENDPOINT_SYNTHESIS);
+        long st = balancer.start(url);
+        InputStream ret = null;
+        try {
+            var request = HttpUtils.newRequest(url + "/synthesis?speaker=" + speakerId).header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(query))).build();
+            var stream = HttpUtils.sendForStream(getClient(url), request);
+            balancer.succeeded(url, ENDPOINT_SYNTHESIS, st);
+            ret = new ReleaseInputStream(stream, () -> end(url));
+            return ret;
+        } catch (IOException ex) {
+            balancer.failed(url);
+            throw ex;
+        } finally {
+            if (ret == null)
+                end(url);
+        }
+    }
+
+    private void end(String url) {
+        balancer.end(url);
+        EngineLimiter.release(getName());
+    }
+
+    public InputStream synthesis(JsonObject query, int speakerId) throws IOException, InterruptedException {
+        if (!multiSynthesis || Main.CONFIG.synthesisBatchWindow() <= 0 || Main.CONFIG.synthesisBatchSize() <= 1)
+            return getVoce(query, speakerId);
+        return batcher.submit(query, speakerId);
+    }
+
+    protected List<byte[]> getVoices(List<JsonObject> queries, int speakerId) throws IOException, InterruptedException {
+        var ja = new JsonArray();
+        queries.forEach(ja::add);
+
+        EngineLimiter.acquire(getName());
+        var url = getEngineURL(ENDPOINT_MULTI_SYNTHESIS);
+        long st = balancer.start(url);
         try {
-            var hc = HttpClient.newHttpClient();
-            var request = HttpRequest.newBuilder(URI.create(url + "/synthesis?speaker=" + speakerId)).header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(query))).version(HttpClient.Version.HTTP_1_1).build();
-            var res = hc.send(request, HttpResponse.BodyHandlers.ofInputStream());
-            return res.body();
+            var request = HttpUtils.newRequest(url + "/multi_synthesis?speaker=" + speakerId).header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(ja))).build();
+            var res = HttpUtils.send(getClient(url), request, HttpResponse.BodyHandlers.ofInputStream());
+            if (res.statusCode() == 404) {
+                res.body().close();
+                balancer.succeeded(url, ENDPOINT_MULTI_SYNTHESIS, st);
+                multiSynthesis = false;
+                LOGGER.warn(getName() + " engine does not support multi synthesis, disable batching: " + url);
+                return null;
+            }
+            if (res.statusCode() != 200) {
+                res.body().close();
+                throw new IOException("Unexpected response status " + res.statusCode() + ": " + request.uri());
+            }
+
+            var voices = readVoices(res.body(), queries.size());
+            balancer.succeeded(url, ENDPOINT_MULTI_SYNTHESIS, st);
+            return voices;
+        } catch (IOException ex) {
+            balancer.failed(url);
+            throw ex;
         } finally {
-            loadEndEngine(url);
+            end(url);
+        }
+    }
+
+    static List<byte[]> readVoices(InputStream stream, int count) throws IOException {
+        Map<String, byte[]> voices = new TreeMap<>();
+        try (var zip = new ZipInputStream(stream)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                voices.put(entry.getName(), zip.readAllBytes());
+            }
         }
+        if (voices.size() != count)
+            throw new IOException("Unexpected number of voices " + voices.size() + ", expected " + count);
+        return new ArrayList<>(voices.values());
     }
 }
@@ -0,0 +1,17 @@
+package dev.felnull.ttsvoice;
+
+import com.google.gson.JsonObject;
+
+import java.util.function.Consumer;
+
+public class TestConfigs {
+    public static Config create(Consumer<JsonObject> modifier) {
+        var jo = Config.createDefault().toJson();
+        modifier.accept(jo);
+        return Config.of(jo);
+    }
+
+    public static void apply(Consumer<JsonObject> modifier) {
+        Main.CONFIG = create(modifier);
+    }
+}
@@ -0,0 +1,87 @@
+package dev.felnull.ttsvoice.audio;
+
+import dev.felnull.ttsvoice.TestConfigs;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GuildTaskExecutorTest {
+    @BeforeAll
+    public static void setup() {
+        TestConfigs.apply(jo -> {
+        });
+    }
+
+    @Test
+    public void testSupply() {
+        var executor = new GuildTaskExecutor(1);
+        assertEquals("test", executor.supply(() -> "test").orTimeout(10, TimeUnit.SECONDS).join());
+    }
+
+    @Test
+    public void testShutdownFailsPendingTasks() throws InterruptedException {
+        var executor = new GuildTaskExecutor(1);
+        var started = new CountDownLatch(1);
+        var block = new CountDownLatch(1);
+
+        var running = executor.supply(() -> {
+            started.countDown();
+            try {
+                block.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return "running";
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        var pending = executor.supply(() -> "pending");
+        executor.shutdown();
+
+        var ex = assertThrows(CompletionException.class, pending::join);
+        assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+
+        block.countDown();
+        assertEquals("running", running.orTimeout(10, TimeUnit.SECONDS).join());
+    }
+
+    @Test
+    public void testComposeHoldsSlotUntilComplete() throws Exception {
+        var executor = new GuildTaskExecutor(1);
+        var inner = new CompletableFuture<String>();
+        var started = new AtomicBoolean();
+
+        var first = executor.compose(() -> inner);
+        var second = executor.supply(() -> {
+            started.set(true);
+            return "second";
+        });
+
+        Thread.sleep(100);
+        assertFalse(started.get());
+        assertFalse(second.isDone());
+
+        inner.complete("first");
+        assertEquals("first", first.orTimeout(10, TimeUnit.SECONDS).join());
+        assertEquals("second", second.orTimeout(10, TimeUnit.SECONDS).join());
+    }
+
+    @Test
+    public void testRejectAfterShutdown() {
+        var executor = new GuildTaskExecutor(1);
+        executor.shutdown();
+
+        var ex = assertThrows(CompletionException.class, () -> executor.supply(() -> "test").join());
+        assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+        }));
+    }
+}
@@ -0,0 +1,209 @@
+package dev.felnull.ttsvoice.audio.loader;
+
+import dev.felnull.ttsvoice.TestConfigs;
+import dev.felnull.ttsvoice.audio.player.StreamVoiceTrackLoader;
+import dev.felnull.ttsvoice.audio.player.VoiceTrackLoader;
+import dev.felnull.ttsvoice.tts.TTSVoice;
+import dev.felnull.ttsvoice.tts.UtteranceTrace;
+import dev.felnull.ttsvoice.tts.sayvoice.ISayVoice;
+import dev.felnull.ttsvoice.tts.sayvoice.LiteralSayVoice;
+import dev.felnull.ttsvoice.util.ReleaseInputStream;
+import dev.felnull.ttsvoice.voice.EngineLimiter;
+import dev.felnull.ttsvoice.voice.VoiceType;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VoiceLoaderManagerTest {
+    private static final File TMP_FOLDER = new File("./tmp");
+    private static final Set<File> TMP_FILES = new HashSet<>();
+    private static boolean createdTmpFolder;
+
+    @BeforeAll
+    public static void setup() {
+        TestConfigs.apply(jo -> {
+            jo.addProperty("VoiceCacheSize", 0);
+            jo.getAsJsonObject("EngineConcurrency").addProperty(LimitedVoiceType.ENGINE, 1);
+        });
+        createdTmpFolder = TMP_FOLDER.mkdirs();
+        var files = TMP_FOLDER.listFiles();
+        if (files != null)
+            TMP_FILES.addAll(Arrays.asList(files));
+    }
+
+    @AfterAll
+    public static void cleanup() throws IOException {
+        if (createdTmpFolder) {
+            FileUtils.deleteDirectory(TMP_FOLDER);
+            return;
+        }
+        var files = TMP_FOLDER.listFiles();
+        if (files == null)
+            return;
+        for (File file : files) {
+            if (!TMP_FILES.contains(file))
+                file.delete();
+        }
+    }
+
+    @Test
+    public void testCoalesceCachedVoice() throws Exception {
+        var voiceType = new TestVoiceType(true);
+        var voice = new TTSVoice(new LiteralSayVoice(UUID.randomUUID().toString()), voiceType);
+        var vlm = VoiceLoaderManager.getInstance();
+
+        var first = vlm.getTrackLoader(voice, UtteranceTrace.start(), false);
+        assertTrue(voiceType.started.await(10, TimeUnit.SECONDS));
+        var second = vlm.getTrackLoader(voice, UtteranceTrace.start(), false);
+        voiceType.block.countDown();
+
+        end(first.get(10, TimeUnit.SECONDS));
+        end(second.get(10, TimeUnit.SECONDS));
+        end(vlm.getTrackLoader(voice, UtteranceTrace.start(), false).get(10, TimeUnit.SECONDS));
+        assertEquals(1, voiceType.calls.get());
+    }
+
+    @Test
+    public void testNotCoalesceUncachedVoice() throws Exception {
+        var voiceType = new TestVoiceType(false);
+        voiceType.block.countDown();
+        var voice = new TTSVoice(new LiteralSayVoice(UUID.randomUUID().toString()), voiceType);
+        var vlm = VoiceLoaderManager.getInstance();
+
+        end(vlm.getTrackLoader(voice, UtteranceTrace.start(), false).get(10, TimeUnit.SECONDS));
+        end(vlm.getTrackLoader(voice, UtteranceTrace.start(), false).get(10, TimeUnit.SECONDS));
+        assertEquals(2, voiceType.calls.get());
+    }
+
+    @Test
+    public void testDeleteUncachedVoiceOnEnd() throws Exception {
+        var voiceType = new TestVoiceType(false);
+        voiceType.block.countDown();
+        var voice = new TTSVoice(new LiteralSayVoice(UUID.randomUUID().toString()), voiceType);
+
+        var loader = assertInstanceOf(StreamVoiceTrackLoader.class, VoiceLoaderManager.getInstance().getTrackLoader(voice, UtteranceTrace.start(), false).get(10, TimeUnit.SECONDS));
+        var file = loader.getStream().getFile();
+        loader.end();
+
+        long timeout = System.currentTimeMillis() + 10000;
+        while (file.exists() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testBurstWithEngineLimit() throws Exception {
+        var vlm = VoiceLoaderManager.getInstance();
+        var voiceType = new LimitedVoiceType();
+        List<CompletableFuture<VoiceTrackLoader>> loaders = new ArrayList<>();
+        for (int i = 0; i < Runtime.getRuntime().availableProcessors() + 5; i++) {
+            var voice = new TTSVoice(new LiteralSayVoice(UUID.randomUUID().toString()), voiceType);
+            loaders.add(vlm.getTrackLoader(voice, UtteranceTrace.start(), false));
+        }
+
+        for (CompletableFuture<VoiceTrackLoader> loader : loaders) {
+            end(loader.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(loaders.size(), voiceType.calls.get());
+    }
+
+    @Test
+    public void testCacheKey() {
+        var vlm = VoiceLoaderManager.getInstance();
+        var cachedType = new TestVoiceType(true);
+        var cached = new TTSVoice(new LiteralSayVoice("ｔｅｓｔ"), cachedType);
+
+        assertEquals(VoiceDiskCache.createKey(cachedType, "test"), vlm.getCacheKey(cached));
+        assertNull(vlm.getCacheKey(new TTSVoice(new LiteralSayVoice("test"), new TestVoiceType(false))));
+    }
+
+    private static void end(VoiceTrackLoader loader) {
+        assertNotNull(loader);
+        loader.end();
+    }
+
+    private static class LimitedVoiceType implements VoiceType {
+        private static final String ENGINE = "test-limited";
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public InputStream getSound(String text) throws Exception {
+            EngineLimiter.acquire(ENGINE);
+            calls.incrementAndGet();
+            return new ReleaseInputStream(new ByteArrayInputStream(text.getBytes()), () -> EngineLimiter.release(ENGINE));
+        }
+
+        @Override
+        public String getEngineName() {
+            return ENGINE;
+        }
+
+        @Override
+        public boolean isCached(ISayVoice sayVoice) {
+            return false;
+        }
+
+        @Override
+        public String getTitle() {
+            return ENGINE;
+        }
+
+        @Override
+        public String getId() {
+            return ENGINE;
+        }
+    }
+
+    private static class TestVoiceType implements VoiceType {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch block = new CountDownLatch(1);
+        private final boolean cached;
+
+        private TestVoiceType(boolean cached) {
+            this.cached = cached;
+        }
+
+        @Override
+        public InputStream getSound(String text) throws Exception {
+            calls.incrementAndGet();
+            started.countDown();
+            block.await();
+            return new ByteArrayInputStream(text.getBytes());
+        }
+
+        @Override
+        public String getEngineName() {
+            return "test";
+        }
+
+        @Override
+        public boolean isCached(ISayVoice sayVoice) {
+            return cached;
+        }
+
+        @Override
+        public String getTitle() {
+            return "test";
+        }
+
+        @Override
+        public String getId() {
+            return "test";
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package dev.felnull.ttsvoice.tts;
+
+import dev.felnull.ttsvoice.TestConfigs;
+import dev.felnull.ttsvoice.tts.sayvoice.LiteralSayVoice;
+import dev.felnull.ttsvoice.voice.VoiceType;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TTSQueueTest {
+    private static final VoiceType VOICE_TYPE = new TestVoiceType("test", 10);
+
+    @Test
+    public void testReject() {
+        TestConfigs.apply(jo -> {
+            jo.addProperty("QueueCapacity", 3);
+            jo.addProperty("QueuePolicy", TTSQueue.Policy.REJECT.getName());
+        });
+        var removed = new ArrayList<TTSVoiceEntry>();
+        var queue = new TTSQueue(0, removed::add);
+
+        assertTrue(queue.offer(message("a", "b")));
+        assertFalse(queue.offer(message("c", "d")));
+        assertEquals(2, queue.size());
+        assertTrue(queue.offer(message("c")));
+        assertEquals(List.of("a", "b", "c"), texts(queue));
+        assertTrue(removed.isEmpty());
+    }
+
+    @Test
+    public void testDropOldestMessage() {
+        TestConfigs.apply(jo -> {
+            jo.addProperty("QueueCapacity", 4);
+            jo.addProperty("QueuePolicy", TTSQueue.Policy.DROP_OLDEST.getName());
+        });
+        var removed = new ArrayList<TTSVoiceEntry>();
+        var queue = new TTSQueue(0, removed::add);
+
+        assertTrue(queue.offer(message("a1", "a2", "a3")));
+        assertTrue(queue.offer(message("b1")));
+        assertTrue(queue.offer(message("c1", "c2")));
+
+        assertEquals(List.of("b1", "c1", "c2"), texts(queue));
+        assertEquals(3, queue.size());
+        assertEquals(List.of("a1", "a2", "a3"), removed.stream().map(TTSQueueTest::text).toList());
+    }
+
+    @Test
+    public void testDropOldestTooLargeMessage() {
+        TestConfigs.apply(jo -> {
+            jo.addProperty("QueueCapacity", 2);
+            jo.addProperty("QueuePolicy", TTSQueue.Policy.DROP_OLDEST.getName());
+        });
+        var removed = new ArrayList<TTSVoiceEntry>();
+        var queue = new TTSQueue(0, removed::add);
+
+        assertTrue(queue.offer(message("a")));
+        assertFalse(queue.offer(message("b1", "b2", "b3")));
+        assertEquals(List.of("a"), texts(queue));
+        assertTrue(removed.isEmpty());
+    }
+
+    @Test
+    public void testMerge() {
+        TestConfigs.apply(jo -> {
+            jo.addProperty("QueueCapacity", 1);
+            jo.addProperty("QueuePolicy", TTSQueue.Policy.MERGE.getName());
+        });
+        var removed = new ArrayList<TTSVoiceEntry>();
+        var queue = new TTSQueue(0, removed::add);
+
+        assertTrue(queue.offer(message("あいう")));
+        assertTrue(queue.offer(message(new TestVoiceType("test", 10), "えお")));
+        assertEquals(List.of("あいう、えお"), texts(queue));
+        assertEquals(1, removed.size());
+
+        assertTrue(queue.offer(message("かきくけこ")));
+        assertEquals(List.of("あいう、えお、かきく"), texts(queue));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void testMergeDifferentVoiceType() {
+        TestConfigs.apply(jo -> {
+            jo.addProperty("QueueCapacity", 1);
+            jo.addProperty("QueuePolicy", TTSQueue.Policy.MERGE.getName());
+        });
+        var queue = new TTSQueue(0, n -> {
+        });
+
+        assertTrue(queue.offer(message("a")));
+        assertFalse(queue.offer(message(new TestVoiceType("other", 10), "b")));
+        assertEquals(List.of("a"), texts(queue));
+    }
+
+    @Test
+    public void testPollAndClear() {
+        TestConfigs.apply(jo -> jo.addProperty("QueueCapacity", 10));
+        var removed = new ArrayList<TTSVoiceEntry>();
+        var queue = new TTSQueue(0, removed::add);
+
+        queue.offer(message("a", "b", "c"));
+        assertEquals("a", text(queue.poll()));
+        assertEquals(2, queue.size());
+        assertTrue(removed.isEmpty());
+
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+        assertEquals(List.of("b", "c"), removed.stream().map(TTSQueueTest::text).toList());
+    }
+
+    private static List<TTSVoiceEntry> message(String... texts) {
+        return message(VOICE_TYPE, texts);
+    }
+
+    private static List<TTSVoiceEntry> message(VoiceType voiceType, String... texts) {
+        var trace = UtteranceTrace.start();
+        List<TTSVoiceEntry> ret = new ArrayList<>();
+        for (int i = 0; i < texts.length; i++) {
+            ret.add(new TTSVoiceEntry(new TTSVoice(new LiteralSayVoice(texts[i]), voiceType), UUID.randomUUID(), i > 0, trace.copy()));
+        }
+        return ret;
+    }
+
+    private static List<String> texts(TTSQueue queue) {
+        return queue.stream().map(TTSQueueTest::text).toList();
+    }
+
+    private static String text(TTSVoiceEntry entry) {
+        return entry.voice().sayVoice().getSayVoiceText();
+    }
+
+    private static record TestVoiceType(String id, int maxTextLength) implements VoiceType {
+        @Override
+        public InputStream getSound(String text) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getEngineName() {
+            return "test";
+        }
+
+        @Override
+        public int getMaxTextLength(long guildId) {
+            return maxTextLength;
+        }
+
+        @Override
+        public String getTitle() {
+            return id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package dev.felnull.ttsvoice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReleaseInputStreamTest {
+    @Test
+    public void testReleaseOnEndOfStream() throws IOException {
+        var released = new AtomicInteger();
+        var stream = new ReleaseInputStream(new ByteArrayInputStream(new byte[]{1, 2, 3}), released::incrementAndGet);
+
+        assertEquals(1, stream.read());
+        assertEquals(0, released.get());
+        assertArrayEquals(new byte[]{2, 3}, stream.readAllBytes());
+        assertEquals(1, released.get());
+
+        stream.close();
+        assertEquals(1, released.get());
+    }
+
+    @Test
+    public void testReleaseOnClose() throws IOException {
+        var released = new AtomicInteger();
+        var stream = new ReleaseInputStream(new ByteArrayInputStream(new byte[]{1, 2, 3}), released::incrementAndGet);
+
+        assertEquals(1, stream.read());
+        stream.close();
+        assertEquals(1, released.get());
+
+        stream.close();
+        assertEquals(1, released.get());
+    }
+}
@@ -0,0 +1,47 @@
+package dev.felnull.ttsvoice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextUtilsTest {
+    @Test
+    public void testSplitSentences() {
+        assertEquals(List.of("今日はとても良い天気ですね。", "明日も晴れるといいですね。"), TextUtils.splitSentences("今日はとても良い天気ですね。明日も晴れるといいですね。", 10));
+        assertEquals(List.of("こんにちは。"), TextUtils.splitSentences("こんにちは。", 10));
+        assertEquals(List.of(), TextUtils.splitSentences("", 10));
+    }
+
+    @Test
+    public void testSplitSentencesMergeShortParts() {
+        assertEquals(List.of("はい。そうです。わかりました。"), TextUtils.splitSentences("はい。そうです。わかりました。", 10));
+        assertEquals(List.of("今日はとても良い天気ですね。はい"), TextUtils.splitSentences("今日はとても良い天気ですね。はい", 10));
+    }
+
+    @Test
+    public void testSplitSentencesKeepText() {
+        var text = "遅れてごめん！電車が止まっていて、駅で三十分くらい待っていました。今から向かいます？それとも先に始めてる?";
+        assertEquals(text, String.join("", TextUtils.splitSentences(text, 10)));
+    }
+
+    @Test
+    public void testNormalizeSayText() {
+        assertEquals("www", TextUtils.normalizeSayText("ｗｗｗ"));
+        assertEquals("カタカナ", TextUtils.normalizeSayText("ｶﾀｶﾅ"));
+        assertEquals("100000円", TextUtils.normalizeSayText("１０００００円"));
+    }
+
+    @Test
+    public void testNormalizeSayTextWhitespace() {
+        assertEquals("草 生える", TextUtils.normalizeSayText("  草  生える  "));
+        assertEquals("a b", TextUtils.normalizeSayText("a\n\nb"));
+    }
+
+    @Test
+    public void testNormalizeSayTextRepeat() {
+        assertEquals("wwww", TextUtils.normalizeSayText("wwwwwwwwwwww"));
+        assertEquals("すごい!!!!", TextUtils.normalizeSayText("すごい！！！！！！"));
+    }
+}
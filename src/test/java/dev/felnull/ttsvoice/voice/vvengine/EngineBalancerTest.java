@@ -0,0 +1,75 @@
+package dev.felnull.ttsvoice.voice.vvengine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineBalancerTest {
+    private static final String URL_A = "http://engine-a";
+    private static final String URL_B = "http://engine-b";
+
+    @Test
+    public void testSelectWithoutEngine() {
+        var balancer = new EngineBalancer("test", List::of);
+        assertThrows(IllegalStateException.class, () -> balancer.select("synthesis"));
+    }
+
+    @Test
+    public void testSelectSingleEngine() {
+        var balancer = new EngineBalancer("test", () -> List.of(URL_A));
+        for (int i = 0; i < 5; i++) {
+            balancer.failed(URL_A);
+        }
+        assertEquals(URL_A, balancer.select("synthesis"));
+    }
+
+    @Test
+    public void testEjectFailedEngine() {
+        var balancer = new EngineBalancer("test", () -> List.of(URL_A, URL_B));
+        for (int i = 0; i < 3; i++) {
+            balancer.failed(URL_A);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(URL_B, balancer.select("synthesis"));
+        }
+    }
+
+    @Test
+    public void testSelectWhenAllEjected() {
+        var balancer = new EngineBalancer("test", () -> List.of(URL_A, URL_B));
+        for (int i = 0; i < 3; i++) {
+            balancer.failed(URL_A);
+            balancer.failed(URL_B);
+        }
+        var url = balancer.select("synthesis");
+        assertTrue(URL_A.equals(url) || URL_B.equals(url));
+    }
+
+    @Test
+    public void testRestoreOnSuccess() {
+        var balancer = new EngineBalancer("test", () -> List.of(URL_A, URL_B));
+        for (int i = 0; i < 3; i++) {
+            balancer.failed(URL_A);
+        }
+        balancer.succeeded(URL_A, "synthesis", System.nanoTime());
+        balancer.succeeded(URL_B, "synthesis", System.nanoTime() - 500_000_000L);
+        assertEquals(URL_A, balancer.select("synthesis"));
+    }
+
+    @Test
+    public void testLatencyPerEndpoint() {
+        var balancer = new EngineBalancer("test", () -> List.of(URL_A, URL_B));
+        long now = System.nanoTime();
+        balancer.succeeded(URL_A, "synthesis", now - 500_000_000L);
+        balancer.succeeded(URL_B, "synthesis", now);
+        balancer.succeeded(URL_A, "audio_query", now);
+        balancer.succeeded(URL_B, "audio_query", now - 500_000_000L);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(URL_B, balancer.select("synthesis"));
+            assertEquals(URL_A, balancer.select("audio_query"));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package dev.felnull.ttsvoice.voice.vvengine;
+
+import com.google.gson.JsonObject;
+import dev.felnull.ttsvoice.TestConfigs;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SynthesisBatcherTest {
+    @BeforeAll
+    public static void setup() {
+        TestConfigs.apply(jo -> {
+            jo.addProperty("SynthesisBatchWindow", 1000);
+            jo.addProperty("SynthesisBatchSize", 2);
+        });
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        var manager = new TestEngineManager(false);
+        var batcher = new SynthesisBatcher(manager);
+
+        var a = submit(batcher, "a");
+        var b = submit(batcher, "b");
+
+        assertEquals("batch-a", a.get(10, TimeUnit.SECONDS));
+        assertEquals("batch-b", b.get(10, TimeUnit.SECONDS));
+        assertEquals(1, manager.batches.get());
+        assertEquals(0, manager.singles.get());
+    }
+
+    @Test
+    public void testFallbackOnBatchFailure() throws Exception {
+        var manager = new TestEngineManager(true);
+        var batcher = new SynthesisBatcher(manager);
+
+        var a = submit(batcher, "a");
+        var b = submit(batcher, "b");
+
+        assertEquals("single-a", a.get(10, TimeUnit.SECONDS));
+        assertEquals("single-b", b.get(10, TimeUnit.SECONDS));
+        assertEquals(1, manager.batches.get());
+        assertEquals(2, manager.singles.get());
+    }
+
+    private static CompletableFuture<String> submit(SynthesisBatcher batcher, String text) {
+        var query = new JsonObject();
+        query.addProperty("text", text);
+        return CompletableFuture.supplyAsync(() -> {
+            try (var stream = batcher.submit(query, 0)) {
+                return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+    }
+
+    private static class TestEngineManager extends VVEngineManager {
+        private final AtomicInteger batches = new AtomicInteger();
+        private final AtomicInteger singles = new AtomicInteger();
+        private final boolean failBatch;
+
+        private TestEngineManager(boolean failBatch) {
+            this.failBatch = failBatch;
+        }
+
+        @Override
+        public List<String> getEngineURLs() {
+            return List.of();
+        }
+
+        @Override
+        protected VVEVoiceType createVoiceType(JsonObject jo, String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected String getName() {
+            return "test";
+        }
+
+        @Override
+        public InputStream getVoce(JsonObject query, int speakerId) {
+            singles.incrementAndGet();
+            return new ByteArrayInputStream(("single-" + query.get("text").getAsString()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        protected List<byte[]> getVoices(List<JsonObject> queries, int speakerId) throws IOException {
+            batches.incrementAndGet();
+            if (failBatch)
+                throw new IOException("test");
+            return queries.stream().map(n -> ("batch-" + n.get("text").getAsString()).getBytes(StandardCharsets.UTF_8)).toList();
+        }
+    }
+}
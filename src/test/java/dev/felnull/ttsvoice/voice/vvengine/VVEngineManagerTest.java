@@ -0,0 +1,43 @@
+package dev.felnull.ttsvoice.voice.vvengine;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VVEngineManagerTest {
+    @Test
+    public void testReadVoices() throws IOException {
+        var zip = createZip("002.wav", "b", "001.wav", "a", "003.wav", "c");
+        var voices = VVEngineManager.readVoices(new ByteArrayInputStream(zip), 3);
+
+        assertEquals(3, voices.size());
+        assertEquals("a", new String(voices.get(0), StandardCharsets.UTF_8));
+        assertEquals("b", new String(voices.get(1), StandardCharsets.UTF_8));
+        assertEquals("c", new String(voices.get(2), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadVoicesCountMismatch() throws IOException {
+        var zip = createZip("001.wav", "a", "002.wav", "b");
+        assertThrows(IOException.class, () -> VVEngineManager.readVoices(new ByteArrayInputStream(zip), 3));
+    }
+
+    private static byte[] createZip(String... entries) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(entries[i]));
+                zip.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}